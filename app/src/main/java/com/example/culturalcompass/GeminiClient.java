@@ -0,0 +1,248 @@
+package com.example.culturalcompass;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+// One Gemini client for the whole app (map and favorites descriptions, assistant chat).
+// All calls share a single OkHttpClient, so the connection pool, dispatcher threads and the
+// HTTP/2 + TLS connection to generativelanguage.googleapis.com are reused between taps.
+// preconnect() opens that connection early, when a screen that will talk to Gemini appears.
+// stream() delivers the reply chunk by chunk for screens that show text as it is generated.
+// Callbacks are delivered on the main thread.
+public class GeminiClient {
+
+    private static final String HOST = "https://generativelanguage.googleapis.com/";
+    private static final String MODEL = "gemini-2.0-flash";
+    private static final MediaType JSON_MEDIA = MediaType.get("application/json; charset=utf-8");
+
+    // timeouts for every Gemini request (the call timeout bounds a whole streamed reply)
+    private static final long CONNECT_TIMEOUT_MS = 10_000;
+    private static final long READ_TIMEOUT_MS = 30_000;
+    private static final long CALL_TIMEOUT_MS = 60_000;
+
+    // idle connections are kept this long; preconnecting again sooner is pointless
+    private static final long KEEP_ALIVE_MS = 5 * 60 * 1000L;
+
+    public interface Callback {
+        // text is the first candidate's text, or null if the response had none
+        void onResult(@Nullable String text);
+
+        void onFailure(@NonNull IOException e);
+    }
+
+    public interface StreamCallback {
+        // a new piece of text, in order
+        void onChunk(@NonNull String delta);
+
+        // the whole reply (trimmed), or null if the stream carried no text
+        void onComplete(@Nullable String text);
+
+        void onFailure(@NonNull IOException e);
+    }
+
+    private static GeminiClient instance;
+
+    private final String apiKey;
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final OkHttpClient http;
+    private long lastPreconnectAt = 0;
+
+    public static synchronized GeminiClient get(Context ctx) {
+        if (instance == null) {
+            instance = new GeminiClient(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private GeminiClient(Context appCtx) {
+        apiKey = appCtx.getString(R.string.gemini_api_key);
+        http = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(5, KEEP_ALIVE_MS, TimeUnit.MILLISECONDS))
+                .connectTimeout(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .readTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .callTimeout(CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    // Warms the pooled connection (DNS, TCP, TLS, HTTP/2) with a cheap request whose
+    // response is ignored. At most once per keep-alive period.
+    public synchronized void preconnect() {
+        long now = SystemClock.elapsedRealtime();
+        if (lastPreconnectAt != 0 && now - lastPreconnectAt < KEEP_ALIVE_MS) return;
+        lastPreconnectAt = now;
+
+        Request request = new Request.Builder().url(HOST).head().build();
+        http.newCall(request).enqueue(new okhttp3.Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                synchronized (GeminiClient.this) {
+                    lastPreconnectAt = 0; // try again next time
+                }
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                response.close();
+            }
+        });
+    }
+
+    // One-shot prompt (used for place descriptions).
+    public Call generate(String prompt, Callback callback) {
+        return generate(userContents(prompt), callback);
+    }
+
+    // Full conversation; contents is the Gemini "contents" array.
+    public Call generate(JSONArray contents, Callback callback) {
+        Call call = http.newCall(buildRequest("generateContent", false, contents));
+        call.enqueue(new okhttp3.Callback() {
+            @Override
+            public void onFailure(@NonNull Call c, @NonNull IOException e) {
+                main.post(() -> callback.onFailure(e));
+            }
+
+            @Override
+            public void onResponse(@NonNull Call c, @NonNull Response response) {
+                String text = null;
+                try (ResponseBody body = response.body()) {
+                    if (body != null) text = parseText(body.string());
+                } catch (IOException e) {
+                    main.post(() -> callback.onFailure(e));
+                    return;
+                }
+                String result = text;
+                main.post(() -> callback.onResult(result));
+            }
+        });
+        return call;
+    }
+
+    // Streams the reply over server-sent events (streamGenerateContent?alt=sse), so text can be
+    // shown as soon as the first chunk is generated. Nothing is delivered once the returned
+    // call is cancelled.
+    public Call stream(String prompt, StreamCallback callback) {
+        return stream(userContents(prompt), callback);
+    }
+
+    public Call stream(JSONArray contents, StreamCallback callback) {
+        Call call = http.newCall(buildRequest("streamGenerateContent", true, contents));
+        call.enqueue(new okhttp3.Callback() {
+            @Override
+            public void onFailure(@NonNull Call c, @NonNull IOException e) {
+                main.post(() -> {
+                    if (!c.isCanceled()) callback.onFailure(e);
+                });
+            }
+
+            @Override
+            public void onResponse(@NonNull Call c, @NonNull Response response) {
+                StringBuilder full = new StringBuilder();
+                try (ResponseBody body = response.body()) {
+                    if (body != null) {
+                        BufferedSource source = body.source();
+                        String line;
+                        // one "data: {json}" line per chunk, blank lines in between
+                        while ((line = source.readUtf8Line()) != null) {
+                            if (!line.startsWith("data:")) continue;
+
+                            String delta = firstText(line.substring(5).trim());
+                            if (delta == null || delta.isEmpty()) continue;
+
+                            full.append(delta);
+                            main.post(() -> {
+                                if (!c.isCanceled()) callback.onChunk(delta);
+                            });
+                        }
+                    }
+                } catch (IOException e) {
+                    main.post(() -> {
+                        if (!c.isCanceled()) callback.onFailure(e);
+                    });
+                    return;
+                }
+
+                String text = full.toString().trim();
+                String result = text.isEmpty() ? null : text;
+                main.post(() -> {
+                    if (!c.isCanceled()) callback.onComplete(result);
+                });
+            }
+        });
+        return call;
+    }
+
+    private Request buildRequest(String method, boolean sse, JSONArray contents) {
+        JSONObject body = new JSONObject();
+        try {
+            body.put("contents", contents);
+        } catch (Exception ignored) {
+        }
+
+        String url = HOST + "v1beta/models/" + MODEL + ":" + method
+                + (sse ? "?alt=sse&key=" : "?key=") + apiKey;
+        return new Request.Builder()
+                .url(url)
+                .post(RequestBody.create(body.toString(), JSON_MEDIA))
+                .build();
+    }
+
+    public static JSONArray userContents(String prompt) {
+        JSONArray contents = new JSONArray();
+        try {
+            JSONObject userObj = new JSONObject();
+            userObj.put("role", "user");
+
+            JSONArray parts = new JSONArray();
+            JSONObject text = new JSONObject();
+            text.put("text", prompt);
+            parts.put(text);
+
+            userObj.put("parts", parts);
+            contents.put(userObj);
+        } catch (Exception ignored) {
+        }
+        return contents;
+    }
+
+    // Extracts the first text part from a Gemini JSON response, or null.
+    @Nullable
+    static String parseText(String json) {
+        String text = firstText(json);
+        return text != null ? text.trim() : null;
+    }
+
+    // Untrimmed, since stream chunks may start or end with the space between two words.
+    @Nullable
+    private static String firstText(String json) {
+        try {
+            JSONObject obj = new JSONObject(json);
+            JSONArray candidates = obj.getJSONArray("candidates");
+            JSONObject content = candidates.getJSONObject(0).getJSONObject("content");
+            JSONArray parts = content.getJSONArray("parts");
+            return parts.getJSONObject(0).getString("text");
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
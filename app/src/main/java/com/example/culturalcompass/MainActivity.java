@@ -15,7 +15,10 @@ import androidx.fragment.app.Fragment;
 
 import com.example.culturalcompass.model.Session;
 import com.example.culturalcompass.ui.assistant.AIAssistantFragment;
+import com.example.culturalcompass.ui.description.DescriptionCache;
 import com.example.culturalcompass.ui.favorites.FavoritesFragment;
+import com.example.culturalcompass.ui.favorites.FavoritesStore;
+import com.example.culturalcompass.ui.favorites.PhotoCacheManager;
 import com.example.culturalcompass.ui.map.MapFragment;
 import com.example.culturalcompass.ui.settings.SettingsFragment;
 import com.example.culturalcompass.ui.splash.SplashFragment;
@@ -53,6 +56,9 @@ public class MainActivity extends AppCompatActivity {
 
         db = FirebaseFirestore.getInstance();
 
+        // start reading saved AI descriptions so the first tap can hit the cache
+        DescriptionCache.get(this);
+
         // header + greeting text
         View headerView = findViewById(R.id.header);
         textGreeting = headerView.findViewById(R.id.textGreeting);
@@ -127,6 +133,9 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
+        // keep the favorites set live for every screen
+        FavoritesStore.get().start(this, email);
+
         db.collection("users")
                 .document(email)
                 .get()
@@ -173,6 +182,13 @@ public class MainActivity extends AppCompatActivity {
         handler.postDelayed(this::showChrome, 200);
     }
 
+    // let the photo memory cache shrink when the system asks for memory
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        PhotoCacheManager.trimMemory(level);
+    }
+
     // navigate to map screen (home)
     public void navigateToHome() {
         exitSplash();
@@ -42,6 +42,7 @@ public class Attraction {
     public double getLat() { return lat; }
     public double getLng() { return lng; }
     public double getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(double distanceMeters) { this.distanceMeters = distanceMeters; }
 
     public String getType() { return typeLabel; }
     public String getPrimaryTypeKey() { return primaryTypeKey; }
@@ -4,9 +4,11 @@ import androidx.annotation.Nullable;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.maps.android.clustering.ClusterItem;
 
+import java.util.Objects;
+
 public class AttractionClusterItem implements ClusterItem {
 
-    private final Attraction attraction;
+    private Attraction attraction;
     private final LatLng position;
     private final String title;
     private final String snippet;
@@ -42,4 +44,17 @@ public class AttractionClusterItem implements ClusterItem {
     public Attraction getAttraction() {
         return attraction;
     }
+
+    // True if the attraction would render as the same marker (position, title and icon type).
+    public boolean hasSameMarker(Attraction other) {
+        return position.latitude == other.getLat()
+                && position.longitude == other.getLng()
+                && Objects.equals(title, other.getName())
+                && Objects.equals(attraction.getPrimaryTypeKey(), other.getPrimaryTypeKey());
+    }
+
+    // Points a reused marker at the latest Attraction instance for the same place.
+    public void setAttraction(Attraction attraction) {
+        this.attraction = attraction;
+    }
 }
\ No newline at end of file
@@ -12,6 +12,13 @@ public class FirestoreAttraction {
     private Double rating;
     private Integer ratingCount;
 
+    // Saved with favorites so the photo can be fetched without a fetchPlace round trip
+    private String photoRef;
+    private Integer photoWidth;
+    private Integer photoHeight;
+    // attribution text that must be shown with the place photo
+    private String photoAttributions;
+
     // Needed for Firestore deserialization
     public FirestoreAttraction() {
     }
@@ -36,6 +43,16 @@ public class FirestoreAttraction {
         this.ratingCount = ratingCount;
     }
 
+    // Copy, for screens that adjust a value (e.g. live distance) on shared instances
+    public FirestoreAttraction(FirestoreAttraction other) {
+        this(other.id, other.name, other.lat, other.lng, other.distanceMeters,
+                other.typeLabel, other.primaryTypeKey, other.rating, other.ratingCount);
+        this.photoRef = other.photoRef;
+        this.photoWidth = other.photoWidth;
+        this.photoHeight = other.photoHeight;
+        this.photoAttributions = other.photoAttributions;
+    }
+
     public String getId() {
         return id;
     }
@@ -56,6 +73,10 @@ public class FirestoreAttraction {
         return distanceMeters;
     }
 
+    public void setDistanceMeters(double distanceMeters) {
+        this.distanceMeters = distanceMeters;
+    }
+
     public String getTypeLabel() {
         return typeLabel;
     }
@@ -71,4 +92,36 @@ public class FirestoreAttraction {
     public Integer getRatingCount() {
         return ratingCount;
     }
+
+    public String getPhotoRef() {
+        return photoRef;
+    }
+
+    public void setPhotoRef(String photoRef) {
+        this.photoRef = photoRef;
+    }
+
+    public Integer getPhotoWidth() {
+        return photoWidth;
+    }
+
+    public void setPhotoWidth(Integer photoWidth) {
+        this.photoWidth = photoWidth;
+    }
+
+    public Integer getPhotoHeight() {
+        return photoHeight;
+    }
+
+    public void setPhotoHeight(Integer photoHeight) {
+        this.photoHeight = photoHeight;
+    }
+
+    public String getPhotoAttributions() {
+        return photoAttributions;
+    }
+
+    public void setPhotoAttributions(String photoAttributions) {
+        this.photoAttributions = photoAttributions;
+    }
 }
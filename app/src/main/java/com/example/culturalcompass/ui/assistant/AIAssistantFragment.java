@@ -12,33 +12,26 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.culturalcompass.GeminiClient;
 import com.example.culturalcompass.R;
 import com.example.culturalcompass.model.Message;
 import com.example.culturalcompass.model.Session;
 
 import org.json.JSONArray;
-import org.json.JSONObject;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 
-public class AIAssistantFragment extends Fragment {
 
-    private static String API_KEY;
-    private static final MediaType JSON_MEDIA = MediaType.get("application/json; charset=utf-8");
+public class AIAssistantFragment extends Fragment {
 
     // UI
     private TextView clearButton;
@@ -47,16 +40,17 @@ public class AIAssistantFragment extends Fragment {
     private EditText inputMessage;
     private ImageButton sendButton;
 
-    // Typing animation flag
-    private volatile boolean stopTyping = false;
+    // Reply being streamed in, null when idle
+    @Nullable
+    private Call replyCall;
+    private int replyIndex = -1;
+    private final StringBuilder replyText = new StringBuilder();
 
     // RecyclerView messages
     private final List<Message> messages = new ArrayList<>();
 
-    // History sent to Gemini
-    private final List<JSONObject> conversationHistory = new ArrayList<>();
-
-    private final OkHttpClient client = new OkHttpClient();
+    // What is sent to Gemini: system prompt, recent turns and a summary of older ones
+    private ChatContext chatContext;
 
     private LinearLayout emptyState;
 
@@ -79,7 +73,8 @@ public class AIAssistantFragment extends Fragment {
         emptyState = view.findViewById(R.id.empty_state);
 
 
-        API_KEY = getString(R.string.gemini_api_key);
+        // open the Gemini connection while the user is still typing
+        GeminiClient.get(requireContext()).preconnect();
 
         // Bind UI
         chatRecycler = view.findViewById(R.id.chat_recycler);
@@ -166,8 +161,8 @@ public class AIAssistantFragment extends Fragment {
 
     @SuppressLint("NotifyDataSetChanged")
     private void clearChat() {
-        conversationHistory.clear();
-        addSystemContextMessage(); // keep system prompt
+        cancelReply();
+        chatContext.clear(); // keeps the system prompt
 
         // Clear UI
         messages.clear();
@@ -175,12 +170,16 @@ public class AIAssistantFragment extends Fragment {
 
         // Show welcome screen again
         emptyState.setVisibility(View.VISIBLE);
-
-        stopTyping = true;
     }
 
     private void setupSendListener() {
         sendButton.setOnClickListener(v -> {
+            // while a reply streams in the button stops it
+            if (replyCall != null) {
+                stopReply();
+                return;
+            }
+
             String userMsg = inputMessage.getText().toString().trim();
             if (userMsg.isEmpty()) return;
 
@@ -189,8 +188,8 @@ public class AIAssistantFragment extends Fragment {
 
             inputMessage.setText("");
 
-            // Show typing bubble
-            showTypingBubble();
+            // Empty assistant bubble, filled in as the reply streams
+            showReplyBubble();
 
             // Send to Gemini
             sendMessageToGemini(userMsg);
@@ -198,29 +197,26 @@ public class AIAssistantFragment extends Fragment {
     }
 
     private void addSystemContextMessage() {
-        try {
-            JSONObject sys = new JSONObject();
-            sys.put("role", "model");
-
-            JSONArray parts = new JSONArray();
-            JSONObject txt = new JSONObject();
-
-            txt.put("text",
-                    "You are Cultural Compass, a friendly assistant helping the user. " +
-                            "The user’s name is " + Session.currentUsername + ". " +
-                            "Use plain text only (no asterisks, no markdown, no emojis). " +
-                            "Keep replies short, clear, and casual. " +
-                            "Explain things simply and help with any topic."
-            );
-
-
-            parts.put(txt);
-            sys.put("parts", parts);
+        GeminiClient gemini = GeminiClient.get(requireContext());
+        ChatContext.Summarizer summarizer = (prompt, callback) ->
+                gemini.generate(prompt, new GeminiClient.Callback() {
+                    @Override
+                    public void onResult(@Nullable String text) {
+                        callback.onSummary(text);
+                    }
 
-            conversationHistory.add(sys);
+                    @Override
+                    public void onFailure(@NonNull IOException e) {
+                        callback.onSummary(null);
+                    }
+                });
 
-        } catch (Exception ignored) {
-        }
+        chatContext = new ChatContext(summarizer,
+                "You are Cultural Compass, a friendly assistant helping the user. " +
+                        "The user’s name is " + Session.currentUsername + ". " +
+                        "Use plain text only (no asterisks, no markdown, no emojis). " +
+                        "Keep replies short, clear, and casual. " +
+                        "Explain things simply and help with any topic.");
     }
 
     private void addMessageToUI(Message msg) {
@@ -230,157 +226,95 @@ public class AIAssistantFragment extends Fragment {
         chatRecycler.smoothScrollToPosition(messages.size() - 1);
     }
 
-    @SuppressLint("NotifyDataSetChanged")
-    private void showTypingBubble() {
-        stopTyping = false;
-
-        // Add typing message
-        Message typingMsg = new Message(Message.ASSISTANT, "Typing...");
-        messages.add(typingMsg);
-        chatAdapter.notifyDataSetChanged();
-        chatRecycler.smoothScrollToPosition(messages.size() - 1);
-
-        new Thread(() -> {
-            String[] dots = {"", ".", "..", "..."};
-            int i = 0;
-
-            while (!stopTyping) {
-                int index = messages.size() - 1;
-                int fi = i;
-
-                requireActivity().runOnUiThread(() -> {
-                    if (index >= 0 && index < messages.size()) {
-                        messages.get(index).text = "Typing" + dots[fi % dots.length];
-                        chatAdapter.notifyDataSetChanged();
-                    }
-                });
-
-                i++;
-                try {
-                    Thread.sleep(300);
-                } catch (InterruptedException ignored) {
-                }
-
-            }
-        }).start();
+    private void showReplyBubble() {
+        addMessageToUI(new Message(Message.ASSISTANT, "Typing..."));
+        replyIndex = messages.size() - 1;
+        replyText.setLength(0);
+        sendButton.setImageResource(R.drawable.ic_stop);
     }
 
-    private void sendMessageToGemini(String userMsg) {
-
-        try {
-            // Build user JSON
-            JSONObject userObj = new JSONObject();
-            userObj.put("role", "user");
-
-            JSONArray userParts = new JSONArray();
-            JSONObject t = new JSONObject();
-            t.put("text", userMsg);
-            userParts.put(t);
-
-            userObj.put("parts", userParts);
-
-            conversationHistory.add(userObj);
-
-
-        } catch (Exception ignored) {
-            addMessageToUI(new Message(Message.ASSISTANT, "JSON error."));
-            return;
-        }
-
-        // Build request JSON
-        JSONArray contentsArray = new JSONArray(conversationHistory);
+    // Replaces the reply bubble's text in place (partial update, no full rebind).
+    private void updateReplyBubble(String text) {
+        if (replyIndex < 0 || replyIndex >= messages.size()) return;
 
-        JSONObject bodyJson = new JSONObject();
-        try {
-            bodyJson.put("contents", contentsArray);
-        } catch (Exception ignored) {
+        // follow the growing bubble only if the user hasn't scrolled up to read
+        boolean atBottom = !chatRecycler.canScrollVertically(1);
+        messages.get(replyIndex).text = text;
+        chatAdapter.notifyItemChanged(replyIndex, ChatAdapter.PAYLOAD_TEXT);
+        if (atBottom) {
+            chatRecycler.post(() -> chatRecycler.smoothScrollToPosition(messages.size() - 1));
         }
+    }
 
-        RequestBody body = RequestBody.create(bodyJson.toString(), JSON_MEDIA);
-
-        String url = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash:generateContent?key="
-                + API_KEY;
+    private void sendMessageToGemini(String userMsg) {
 
-        Request request = new Request.Builder()
-                .url(url)
-                .post(body)
-                .build();
+        chatContext.addUser(userMsg);
 
+        // Bounded context: size stays the same however long the chat is
+        JSONArray contentsArray = chatContext.contents();
 
-        client.newCall(request).enqueue(new Callback() {
+        replyCall = GeminiClient.get(requireContext()).stream(contentsArray, new GeminiClient.StreamCallback() {
 
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                requireActivity().runOnUiThread(() -> {
-                    stopTyping = true;
-                    removeTypingBubble();
-                    addMessageToUI(new Message(Message.ASSISTANT, "Network error."));
-                });
+            public void onChunk(@NonNull String delta) {
+                replyText.append(delta);
+                updateReplyBubble(replyText.toString().trim());
             }
 
-
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                assert response.body() != null;
-                String json = response.body().string();
-                String reply = parseReply(json);
-
-                requireActivity().runOnUiThread(() -> {
-                    stopTyping = true;
-                    removeTypingBubble();
-                    addMessageToUI(new Message(Message.ASSISTANT, reply));
-                });
+            public void onComplete(String text) {
+                String reply = text != null ? text : "Something went wrong. Try again.";
+                chatContext.addModel(reply);
+                updateReplyBubble(reply);
+                endReply();
+            }
 
-                addReplyToConversationHistory(reply);
+            @Override
+            public void onFailure(@NonNull IOException e) {
+                // keep what already arrived, so the history matches what the user saw
+                String partial = replyText.toString().trim();
+                if (partial.isEmpty()) {
+                    chatContext.dropLastUser();
+                    updateReplyBubble("Network error.");
+                } else {
+                    chatContext.addModel(partial);
+                }
+                endReply();
             }
         });
     }
 
-    @SuppressLint("NotifyDataSetChanged")
-    private void removeTypingBubble() {
-        int lastIndex = messages.size() - 1;
-        if (lastIndex >= 0 && messages.get(lastIndex).text.startsWith("Typing")) {
-            messages.remove(lastIndex);
-            chatAdapter.notifyDataSetChanged();
-        }
-    }
-
-    private void addReplyToConversationHistory(String reply) {
-        try {
-            JSONObject modelObj = new JSONObject();
-            modelObj.put("role", "model");
-
-            JSONArray parts = new JSONArray();
-            JSONObject p = new JSONObject();
-            p.put("text", reply);
-            parts.put(p);
-
-            modelObj.put("parts", parts);
-
-            conversationHistory.add(modelObj);
+    // User pressed stop: keep the partial reply as the answer.
+    private void stopReply() {
+        String partial = replyText.toString().trim();
+        if (replyCall != null) replyCall.cancel(); // no callbacks after this
 
-        } catch (Exception ignored) {
+        if (partial.isEmpty()) {
+            chatContext.dropLastUser();
+            updateReplyBubble("Stopped.");
+        } else {
+            chatContext.addModel(partial);
         }
+        endReply();
     }
 
-    private String parseReply(String json) {
-        try {
-            JSONObject obj = new JSONObject(json);
-            JSONArray candidates = obj.getJSONArray("candidates");
-            JSONObject content = candidates.getJSONObject(0).getJSONObject("content");
-            JSONArray parts = content.getJSONArray("parts");
-
-            return parts.getJSONObject(0).getString("text").trim();
+    private void cancelReply() {
+        if (replyCall != null) replyCall.cancel(); // no callbacks after this
+        endReply();
+    }
 
-        } catch (Exception e) {
-            return "Something went wrong. Try again.";
-        }
+    private void endReply() {
+        replyCall = null;
+        replyIndex = -1;
+        replyText.setLength(0);
+        if (sendButton != null) sendButton.setImageResource(R.drawable.ic_send);
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        conversationHistory.clear();
+        cancelReply();
+        chatContext.clear();
         View mainHeader = requireActivity().findViewById(R.id.header);
         if (mainHeader != null)
             mainHeader.setVisibility(View.VISIBLE);
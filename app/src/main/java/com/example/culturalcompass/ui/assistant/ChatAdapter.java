@@ -15,6 +15,10 @@ import java.util.List;
 
 public class ChatAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
+    // notifyItemChanged(position, PAYLOAD_TEXT): only the text grew (streaming reply), so the
+    // bubble is updated in place instead of being rebound and cross-faded
+    public static final Object PAYLOAD_TEXT = new Object();
+
     private final List<Message> messages;
 
     public ChatAdapter(List<Message> messages) {
@@ -52,6 +56,16 @@ public class ChatAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         }
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_TEXT) && holder instanceof AssistantHolder) {
+            ((AssistantHolder) holder).text.setText(messages.get(position).text);
+            return;
+        }
+        onBindViewHolder(holder, position);
+    }
+
     @Override
     public int getItemCount() {
         return messages.size();
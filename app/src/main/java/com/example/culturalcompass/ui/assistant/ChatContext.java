@@ -0,0 +1,180 @@
+package com.example.culturalcompass.ui.assistant;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// What the assistant sends to Gemini on every turn, kept to a fixed size.
+// The system prompt and the last turns go out verbatim; older turns are folded, one
+// exchange at a time, into a short running summary that Gemini writes in the background.
+// Until a fold is summarized its turns are still sent as they are, so nothing is lost,
+// and request size stays flat however long the chat gets. Main thread only.
+class ChatContext {
+
+    // Writes the running summary (Gemini in the app). Must call back on the main thread.
+    interface Summarizer {
+        void summarize(String prompt, SummaryCallback callback);
+    }
+
+    interface SummaryCallback {
+        // null if no summary came back
+        void onSummary(@Nullable String text);
+    }
+
+    // rough size estimate, good enough for a budget (about 4 chars per token)
+    static final int CHARS_PER_TOKEN = 4;
+
+    static final int MAX_TURNS = 8;           // verbatim messages (4 exchanges)
+    static final int TURN_TOKEN_BUDGET = 1500;
+    static final int MAX_SUMMARY_CHARS = 1200;
+
+    private final Summarizer summarizer;
+    private final String systemPrompt;
+
+    private String summary = "";
+    private final List<JSONObject> turns = new ArrayList<>();
+
+    // turns taken out of `turns` and being summarized right now (still sent meanwhile)
+    private final List<JSONObject> folding = new ArrayList<>();
+    // turns waiting for the next summary request
+    private final List<JSONObject> toFold = new ArrayList<>();
+    // bumped by clear() so an old summary reply is ignored
+    private int generation = 0;
+
+    ChatContext(Summarizer summarizer, String systemPrompt) {
+        this.summarizer = summarizer;
+        this.systemPrompt = systemPrompt;
+    }
+
+    void addUser(String text) {
+        turns.add(turn("user", text));
+    }
+
+    void addModel(String text) {
+        turns.add(turn("model", text));
+        trim();
+    }
+
+    // Drops a question that never got an answer.
+    void dropLastUser() {
+        int last = turns.size() - 1;
+        if (last >= 0 && "user".equals(turns.get(last).optString("role"))) {
+            turns.remove(last);
+        }
+    }
+
+    void clear() {
+        generation++;
+        summary = "";
+        turns.clear();
+        folding.clear();
+        toFold.clear();
+    }
+
+    // Gemini "contents" for the next request.
+    JSONArray contents() {
+        JSONArray arr = new JSONArray();
+
+        String sys = systemPrompt;
+        if (!summary.isEmpty()) {
+            sys += " Earlier in this conversation: " + summary;
+        }
+        arr.put(turn("model", sys));
+
+        for (JSONObject t : folding) arr.put(t);
+        for (JSONObject t : toFold) arr.put(t);
+        for (JSONObject t : turns) arr.put(t);
+        return arr;
+    }
+
+    // ----------------- folding -----------------
+
+    private void trim() {
+        // always fold whole exchanges (user + model) so the turns keep alternating
+        while (turns.size() > 2 && (turns.size() > MAX_TURNS || tokens(turns) > TURN_TOKEN_BUDGET)) {
+            toFold.add(turns.remove(0));
+            toFold.add(turns.remove(0));
+        }
+        summarizeNext();
+    }
+
+    private void summarizeNext() {
+        if (!folding.isEmpty() || toFold.isEmpty()) return;
+
+        folding.addAll(toFold);
+        toFold.clear();
+
+        StringBuilder prompt = new StringBuilder(
+                "Update this running summary of a chat between a user and an assistant. "
+                        + "Keep names, places, preferences and open questions. "
+                        + "Plain text, at most 80 words.\n\nSummary so far: ")
+                .append(summary.isEmpty() ? "(none)" : summary)
+                .append("\n\nNew messages:\n");
+        for (JSONObject t : folding) {
+            prompt.append(t.optString("role")).append(": ").append(text(t)).append('\n');
+        }
+
+        int gen = generation;
+        summarizer.summarize(prompt.toString(), text -> {
+            if (gen != generation) return;
+            setSummary(text != null ? text : fallbackSummary());
+        });
+    }
+
+    private void setSummary(String s) {
+        summary = s.length() > MAX_SUMMARY_CHARS ? s.substring(0, MAX_SUMMARY_CHARS) : s;
+        folding.clear();
+        summarizeNext();
+    }
+
+    // Offline fallback: the first sentence of each folded message.
+    private String fallbackSummary() {
+        StringBuilder sb = new StringBuilder(summary);
+        for (JSONObject t : folding) {
+            String txt = text(t);
+            int end = txt.indexOf(". ");
+            if (end > 0) txt = txt.substring(0, end + 1);
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(t.optString("role").equals("user") ? "User: " : "Assistant: ").append(txt);
+        }
+        // keep the most recent part
+        return sb.length() > MAX_SUMMARY_CHARS
+                ? sb.substring(sb.length() - MAX_SUMMARY_CHARS)
+                : sb.toString();
+    }
+
+    // ----------------- helpers -----------------
+
+    private static int tokens(List<JSONObject> list) {
+        int chars = 0;
+        for (JSONObject t : list) chars += text(t).length();
+        return chars / CHARS_PER_TOKEN;
+    }
+
+    private static String text(JSONObject turn) {
+        JSONArray parts = turn.optJSONArray("parts");
+        if (parts == null || parts.length() == 0) return "";
+        JSONObject p = parts.optJSONObject(0);
+        return p != null ? p.optString("text") : "";
+    }
+
+    private static JSONObject turn(String role, String text) {
+        JSONObject obj = new JSONObject();
+        try {
+            obj.put("role", role);
+
+            JSONArray parts = new JSONArray();
+            JSONObject p = new JSONObject();
+            p.put("text", text);
+            parts.put(p);
+
+            obj.put("parts", parts);
+        } catch (Exception ignored) {
+        }
+        return obj;
+    }
+}
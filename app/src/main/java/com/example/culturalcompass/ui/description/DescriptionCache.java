@@ -0,0 +1,185 @@
+package com.example.culturalcompass.ui.description;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+// Persistent store of AI place descriptions, so tapping a place again opens instantly and
+// favorites still have a description offline. Entries are keyed by placeId, PROMPT_VERSION
+// and locale (a new prompt or language never serves an old text), expire after TTL_MS and
+// the least recently used ones are dropped above MAX_ENTRIES.
+// Lookups are in memory on the main thread; the file is loaded and written in the background.
+public class DescriptionCache {
+
+    private static final String TAG = "DescriptionCache";
+    private static final String FILE = "ai_descriptions.json";
+
+    // bump whenever prompt() changes so old answers are not reused
+    public static final int PROMPT_VERSION = 1;
+
+    private static final long TTL_MS = 30L * 24 * 60 * 60 * 1000;
+    private static final int MAX_ENTRIES = 300;
+
+    private static class Entry {
+        final String text;
+        final long savedAt;
+
+        Entry(String text, long savedAt) {
+            this.text = text;
+            this.savedAt = savedAt;
+        }
+    }
+
+    private static DescriptionCache instance;
+
+    private final File file;
+    private final LongSupplier clock;
+    private final Executor io;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    public static synchronized DescriptionCache get(Context ctx) {
+        if (instance == null) {
+            instance = new DescriptionCache(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private DescriptionCache(Context appCtx) {
+        // filesDir, not cacheDir: this is what offline users see
+        this(new File(appCtx.getFilesDir(), FILE), System::currentTimeMillis,
+                Executors.newSingleThreadExecutor());
+    }
+
+    // Tests pass their own clock and run the file work inline.
+    DescriptionCache(File file, LongSupplier clock, Executor io) {
+        this.file = file;
+        this.clock = clock;
+        this.io = io;
+        io.execute(this::load);
+    }
+
+    // The one description prompt used by every screen.
+    public static String prompt(String name, String type) {
+        return "Give me a short friendly explanation (3–5 sentences, no markdown) "
+                + "about this place: " + name + ". "
+                + "It is a " + type + ". "
+                + "If the place is well-known or historically important, include useful background and key details. "
+                + "If it's small or local, keep the description simple and experience-based. "
+                + "Do NOT mention coordinates or country names.";
+    }
+
+    // Cached description for this place, or null if missing or expired.
+    @Nullable
+    public synchronized String lookup(String placeId) {
+        if (placeId == null) return null;
+
+        Entry e = entries.get(key(placeId));
+        if (e == null) return null;
+        if (clock.getAsLong() - e.savedAt > TTL_MS) {
+            entries.remove(key(placeId));
+            return null;
+        }
+        return e.text;
+    }
+
+    public synchronized void put(String placeId, String text) {
+        if (placeId == null || text == null || text.isEmpty()) return;
+
+        entries.put(key(placeId), new Entry(text, clock.getAsLong()));
+        trim();
+        save();
+    }
+
+    private static String key(String placeId) {
+        return placeId + "|v" + PROMPT_VERSION + "|" + Locale.getDefault().toLanguageTag();
+    }
+
+    private void trim() {
+        long now = clock.getAsLong();
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            // eldest first: drop expired ones and anything over the size bound
+            if (entries.size() > MAX_ENTRIES || now - e.getValue().savedAt > TTL_MS) {
+                it.remove();
+            }
+        }
+    }
+
+    // ----------------- file -----------------
+
+    private void load() {
+        if (!file.exists()) return;
+
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                int n = in.read(bytes, read, bytes.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+
+            JSONArray arr = new JSONArray(new String(bytes, 0, read, StandardCharsets.UTF_8));
+            synchronized (this) {
+                // file order is LRU order; anything put() while loading is newer and stays on top
+                LinkedHashMap<String, Entry> loaded = new LinkedHashMap<>(64, 0.75f, true);
+                for (int i = 0; i < arr.length(); i++) {
+                    JSONObject o = arr.getJSONObject(i);
+                    loaded.put(o.getString("key"), new Entry(o.getString("text"), o.getLong("savedAt")));
+                }
+                loaded.putAll(entries);
+                entries.clear();
+                entries.putAll(loaded);
+                trim();
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Dropping unreadable description cache", e);
+            file.delete();
+        }
+    }
+
+    private void save() {
+        JSONArray arr = new JSONArray();
+        try {
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                JSONObject o = new JSONObject();
+                o.put("key", e.getKey());
+                o.put("text", e.getValue().text);
+                o.put("savedAt", e.getValue().savedAt);
+                arr.put(o);
+            }
+        } catch (Exception ignored) {
+            return;
+        }
+
+        String json = arr.toString();
+        io.execute(() -> {
+            // temp file + rename so a crash never leaves half a file
+            File tmp = new File(file.getPath() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                out.write(json.getBytes(StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                tmp.delete();
+                return; // ignore errors, it's just a cache
+            }
+            tmp.renameTo(file);
+        });
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.culturalcompass.ui.description;
 
-import android.graphics.Bitmap;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -17,19 +16,16 @@ import androidx.fragment.app.Fragment;
 
 import com.example.culturalcompass.R;
 import com.example.culturalcompass.model.FirestoreAttraction;
+import com.example.culturalcompass.ui.favorites.FavoritesStore;
 import com.example.culturalcompass.ui.favorites.PhotoCacheManager;
+import com.example.culturalcompass.ui.favorites.PhotoLoader;
+import com.example.culturalcompass.ui.favorites.PhotoRefs;
 import com.google.android.libraries.places.api.Places;
 import com.google.android.libraries.places.api.model.PhotoMetadata;
-import com.google.android.libraries.places.api.model.Place;
-import com.google.android.libraries.places.api.net.FetchPhotoRequest;
-import com.google.android.libraries.places.api.net.FetchPlaceRequest;
 import com.google.android.libraries.places.api.net.PlacesClient;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
 
-import java.util.Arrays;
-import java.util.List;
 import java.util.Locale;
 
 public class DescriptionFragment extends Fragment {
@@ -42,18 +38,22 @@ public class DescriptionFragment extends Fragment {
     private static final String ARG_RATING = "arg_rating";
     private static final String ARG_RATING_COUNT = "arg_rating_count";
     private static final String ARG_DESCRIPTION = "arg_description";
+    private static final String ARG_PHOTO_METADATA = "arg_photo_metadata";
+    private static final String ARG_DESCRIPTION_PROMPT = "arg_description_prompt";
 
-    private String placeId, name, typeLabel, primaryTypeKey, aiDescription;
+    private String placeId, name, typeLabel, primaryTypeKey, aiDescription, descriptionPrompt;
+    @Nullable private PhotoMetadata photoMeta;
     private double distanceMeters, rating;
     private int ratingCount;
 
     private ImageView btnBack, imgPhoto, imgFavorite;
     private TextView txtName, txtType, txtDistance, txtRatingValue, txtRatingCount, txtDescription;
+    private TextView txtPhotoAttributions;
     private LinearLayout layoutRating;
     private RatingBar ratingBar;
 
     private PlacesClient placesClient;
-    private FirebaseFirestore db;
+    @Nullable private DescriptionStream descriptionStream;
 
     public DescriptionFragment() {}
 
@@ -65,7 +65,9 @@ public class DescriptionFragment extends Fragment {
             double distanceMeters,
             Double rating,
             Integer ratingCount,
-            String aiDescription
+            @Nullable PhotoMetadata photoMeta,
+            String aiDescription,
+            @Nullable String descriptionPrompt
     ) {
         DescriptionFragment f = new DescriptionFragment();
         Bundle args = new Bundle();
@@ -76,7 +78,11 @@ public class DescriptionFragment extends Fragment {
         args.putDouble(ARG_DISTANCE_METERS, distanceMeters);
         args.putDouble(ARG_RATING, rating != null ? rating : -1.0);
         args.putInt(ARG_RATING_COUNT, ratingCount != null ? ratingCount : 0);
+        // Parcelable, so it is also kept in the saved instance state and comes back after
+        // process death; a reference that expired meanwhile falls back to fetchPlace
+        args.putParcelable(ARG_PHOTO_METADATA, photoMeta);
         args.putString(ARG_DESCRIPTION, aiDescription != null ? aiDescription : "");
+        args.putString(ARG_DESCRIPTION_PROMPT, descriptionPrompt);
         f.setArguments(args);
         return f;
     }
@@ -94,7 +100,9 @@ public class DescriptionFragment extends Fragment {
             distanceMeters = args.getDouble(ARG_DISTANCE_METERS, 0.0);
             rating = args.getDouble(ARG_RATING, -1.0);
             ratingCount = args.getInt(ARG_RATING_COUNT, 0);
+            photoMeta = args.getParcelable(ARG_PHOTO_METADATA);
             aiDescription = args.getString(ARG_DESCRIPTION, "");
+            descriptionPrompt = args.getString(ARG_DESCRIPTION_PROMPT);
         }
 
         if (!Places.isInitialized()) {
@@ -105,7 +113,6 @@ public class DescriptionFragment extends Fragment {
         }
 
         placesClient = Places.createClient(requireContext());
-        db = FirebaseFirestore.getInstance();
     }
 
     @Nullable
@@ -124,6 +131,7 @@ public class DescriptionFragment extends Fragment {
 
         btnBack = v.findViewById(R.id.btnBack);
         imgPhoto = v.findViewById(R.id.imgPhotoLarge);
+        txtPhotoAttributions = v.findViewById(R.id.txtPhotoAttributions);
         txtName = v.findViewById(R.id.txtNameLarge);
         txtType = v.findViewById(R.id.txtTypeChip);
         txtDistance = v.findViewById(R.id.txtDistanceDetail);
@@ -143,16 +151,53 @@ public class DescriptionFragment extends Fragment {
 
         bindRating();
 
-        txtDescription.setText(
-                aiDescription == null || aiDescription.trim().isEmpty()
-                        ? "No description available."
-                        : aiDescription.trim()
-        );
+        bindDescription();
 
         loadPhotoForPlace();
         setupFavorites();
     }
 
+    // Shows the text we were given, or follows the stream started for this place.
+    private void bindDescription() {
+        if (aiDescription != null && !aiDescription.trim().isEmpty()) {
+            txtDescription.setText(aiDescription.trim());
+            return;
+        }
+
+        if (descriptionPrompt == null || placeId == null) {
+            txtDescription.setText("No description available.");
+            return;
+        }
+
+        // may have finished (or be recreated after rotation) since the list started it
+        String cached = DescriptionCache.get(requireContext()).lookup(placeId);
+        if (cached != null) {
+            txtDescription.setText(cached);
+            return;
+        }
+
+        descriptionStream = DescriptionStream.start(requireContext(), placeId, descriptionPrompt);
+        descriptionStream.observe(descriptionListener);
+    }
+
+    private final DescriptionStream.Listener descriptionListener = new DescriptionStream.Listener() {
+        @Override
+        public void onText(@NonNull String textSoFar) {
+            if (txtDescription != null) txtDescription.setText(textSoFar.trim());
+        }
+
+        @Override
+        public void onDone(@Nullable String text, boolean failed) {
+            descriptionStream = null;
+            if (txtDescription == null) return;
+
+            txtDescription.setText(text != null ? text : "No description available.");
+            if (failed && isAdded()) {
+                Toast.makeText(getContext(), "Failed to load description", Toast.LENGTH_SHORT).show();
+            }
+        }
+    };
+
     private String formatDistance(double meters) {
         return meters < 1000
                 ? String.format(Locale.getDefault(), "%.0f m away", meters)
@@ -194,36 +239,15 @@ public class DescriptionFragment extends Fragment {
     private void loadPhotoForPlace() {
         if (placeId == null) return;
 
-        Bitmap cached = PhotoCacheManager.load(requireContext(), placeId);
-        if (cached != null) {
-            imgPhoto.setImageBitmap(cached);
-            return;
-        }
-
-        imgPhoto.setImageResource(R.drawable.ic_landmark_placeholder);
-
-        FetchPlaceRequest req = FetchPlaceRequest.newInstance(
-                placeId,
-                Arrays.asList(Place.Field.PHOTO_METADATAS)
-        );
-
-        placesClient.fetchPlace(req).addOnSuccessListener(response -> {
-            List<PhotoMetadata> metas = response.getPlace().getPhotoMetadatas();
-            if (metas == null || metas.isEmpty()) return;
-
-            PhotoMetadata meta = metas.get(0);
-
-            FetchPhotoRequest photoReq = FetchPhotoRequest.builder(meta)
-                    .setMaxWidth(800)
-                    .setMaxHeight(800)
-                    .build();
+        // one round trip when we know a photo reference, fetchPlace + fetchPhoto otherwise
+        PhotoMetadata meta = photoMetadata();
+        PhotoLoader.load(imgPhoto, placesClient, placeId, meta, PhotoCacheManager.SIZE_LARGE);
+        PhotoRefs.showAttributions(txtPhotoAttributions, PhotoRefs.attributions(meta), true);
+    }
 
-            placesClient.fetchPhoto(photoReq).addOnSuccessListener(photoResponse -> {
-                Bitmap bmp = photoResponse.getBitmap();
-                PhotoCacheManager.save(requireContext(), placeId, bmp);
-                imgPhoto.setImageBitmap(bmp);
-            });
-        });
+    @Nullable
+    private PhotoMetadata photoMetadata() {
+        return photoMeta != null ? photoMeta : PhotoRefs.lookup(placeId);
     }
 
     private void setupFavorites() {
@@ -235,12 +259,12 @@ public class DescriptionFragment extends Fragment {
             return;
         }
 
-        db.collection("users")
-                .document(email)
-                .collection("favorites")
-                .document(placeId)
-                .get()
-                .addOnSuccessListener(doc -> updateHeartIcon(doc.exists()));
+        // O(1) lookup in the live favorites set instead of a document read
+        FavoritesStore.get().start(requireContext(), email);
+        updateHeartIcon(FavoritesStore.get().isFavorite(placeId));
+        if (!FavoritesStore.get().isLoaded()) {
+            FavoritesStore.get().addListener(favoritesListener);
+        }
 
         imgFavorite.setOnClickListener(v -> {
             boolean fav = imgFavorite.getTag() instanceof Boolean && (Boolean) imgFavorite.getTag();
@@ -248,41 +272,47 @@ public class DescriptionFragment extends Fragment {
 
             updateHeartIcon(newFav);
 
-            if (newFav) {
-                FirestoreAttraction fa = new FirestoreAttraction(
-                        placeId,
-                        name,
-                        0,
-                        0,
-                        distanceMeters,
-                        typeLabel,
-                        primaryTypeKey,
-                        rating > 0 ? rating : null,
-                        ratingCount > 0 ? ratingCount : null
-                );
-
-                db.collection("users")
-                        .document(email)
-                        .collection("favorites")
-                        .document(placeId)
-                        .set(fa)
-                        .addOnSuccessListener(x ->
-                                Toast.makeText(getContext(), "Added: " + name, Toast.LENGTH_SHORT).show()
-                        );
-
-            } else {
-                db.collection("users")
-                        .document(email)
-                        .collection("favorites")
-                        .document(placeId)
-                        .delete()
-                        .addOnSuccessListener(x ->
-                                Toast.makeText(getContext(), "Removed: " + name, Toast.LENGTH_SHORT).show()
-                        );
-            }
+            FirestoreAttraction fa = new FirestoreAttraction(
+                    placeId,
+                    name,
+                    0,
+                    0,
+                    distanceMeters,
+                    typeLabel,
+                    primaryTypeKey,
+                    rating > 0 ? rating : null,
+                    ratingCount > 0 ? ratingCount : null
+            );
+            PhotoRefs.save(fa, photoMetadata());
+
+            // Optimistic: the write is coalesced and batched by the store
+            FavoritesStore.get().setFavorite(fa, newFav);
+            Toast.makeText(getContext(), (newFav ? "Added: " : "Removed: ") + name, Toast.LENGTH_SHORT).show();
         });
     }
 
+    // Only used until the store's first snapshot arrives
+    private final FavoritesStore.Listener favoritesListener = new FavoritesStore.Listener() {
+        @Override
+        public void onFavoritesChanged() {
+            FavoritesStore.get().removeListener(this);
+            if (imgFavorite != null) updateHeartIcon(FavoritesStore.get().isFavorite(placeId));
+        }
+    };
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (imgPhoto != null) PhotoLoader.cancel(imgPhoto);
+        // the stream keeps going and lands in the cache; we just stop listening
+        if (descriptionStream != null) {
+            descriptionStream.removeListener(descriptionListener);
+            descriptionStream = null;
+        }
+        txtDescription = null;
+        FavoritesStore.get().removeListener(favoritesListener);
+    }
+
     private void updateHeartIcon(boolean fav) {
         imgFavorite.setTag(fav);
         imgFavorite.setImageResource(
@@ -0,0 +1,85 @@
+package com.example.culturalcompass.ui.description;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.culturalcompass.GeminiClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A description that is still being generated, keyed by placeId.
+// The list starts it on tap and DescriptionFragment picks it up by placeId once it is shown,
+// so the screen opens right away and the text fills in as Gemini streams it.
+// The stream runs to the end even if the screen is closed, and the result goes into
+// DescriptionCache for the next tap. Main thread only.
+public final class DescriptionStream {
+
+    public interface Listener {
+        // text received so far (called with the current text right away when observing)
+        void onText(@NonNull String textSoFar);
+
+        // final text, or null if nothing came back
+        void onDone(@Nullable String text, boolean failed);
+    }
+
+    private static final Map<String, DescriptionStream> ACTIVE = new HashMap<>();
+
+    private final StringBuilder text = new StringBuilder();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private DescriptionStream() {}
+
+    // Returns the running stream for placeId, or starts one.
+    public static DescriptionStream start(Context ctx, String placeId, String prompt) {
+        DescriptionStream s = ACTIVE.get(placeId);
+        if (s != null) return s;
+
+        DescriptionStream stream = new DescriptionStream();
+        ACTIVE.put(placeId, stream);
+
+        DescriptionCache cache = DescriptionCache.get(ctx);
+        GeminiClient.get(ctx).stream(prompt, new GeminiClient.StreamCallback() {
+            @Override
+            public void onChunk(@NonNull String delta) {
+                stream.text.append(delta);
+                String soFar = stream.text.toString();
+                for (Listener l : new ArrayList<>(stream.listeners)) l.onText(soFar);
+            }
+
+            @Override
+            public void onComplete(@Nullable String result) {
+                if (result != null) cache.put(placeId, result);
+                stream.finish(placeId, result, false);
+            }
+
+            @Override
+            public void onFailure(@NonNull IOException e) {
+                // keep whatever arrived before the connection dropped, but don't cache it
+                String partial = stream.text.toString().trim();
+                stream.finish(placeId, partial.isEmpty() ? null : partial, true);
+            }
+        });
+        return stream;
+    }
+
+    public void observe(Listener l) {
+        listeners.add(l);
+        if (text.length() > 0) l.onText(text.toString());
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    private void finish(String placeId, @Nullable String result, boolean failed) {
+        ACTIVE.remove(placeId);
+        for (Listener l : new ArrayList<>(listeners)) l.onDone(result, failed);
+        listeners.clear();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.culturalcompass.ui.favorites;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+// Recycles photo bitmaps into BitmapFactory.Options.inBitmap so scrolling does not allocate a
+// new bitmap per decode. Bitmaps are bucketed by allocation size.
+// A bitmap only enters the pool once nothing can draw it any more: it must have left the
+// memory cache and must not be shown by any ImageView (PhotoLoader reports both).
+// Only mutable bitmaps (our own decodes) are pooled; Places responses are not reusable.
+final class BitmapPool {
+
+    // a pooled bitmap may be at most this many times larger than what the decode needs
+    private static final int MAX_WASTE_FACTOR = 2;
+
+    private final long maxBytes;
+    private long pooledBytes = 0;
+
+    // allocation size -> free bitmaps of that size
+    private final TreeMap<Integer, ArrayDeque<Bitmap>> buckets = new TreeMap<>();
+    private final Set<Bitmap> pooled = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // how many memory-cache entries / ImageViews hold each bitmap. Weak keys (Bitmap keeps
+    // Object's identity equals/hashCode): a reference that is never released, e.g. a view
+    // dropped without cancel(), only costs a pooling chance, it never pins the bitmap.
+    private final Map<Bitmap, Integer> cacheRefs = new WeakHashMap<>();
+    private final Map<Bitmap, Integer> displayRefs = new WeakHashMap<>();
+
+    BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // A free bitmap of at least neededBytes for inBitmap, or null.
+    @Nullable
+    synchronized Bitmap get(int neededBytes) {
+        Map.Entry<Integer, ArrayDeque<Bitmap>> e = buckets.ceilingEntry(neededBytes);
+        if (e == null || e.getKey() > (long) neededBytes * MAX_WASTE_FACTOR) return null;
+
+        ArrayDeque<Bitmap> bucket = e.getValue();
+        Bitmap bmp;
+        do {
+            bmp = bucket.poll();
+            if (bmp != null) {
+                pooled.remove(bmp);
+                pooledBytes -= bmp.getAllocationByteCount();
+            }
+            // picked up again by the cache or a view since it was pooled: not free any more
+        } while (bmp != null && (cacheRefs.containsKey(bmp) || displayRefs.containsKey(bmp)));
+        if (bucket.isEmpty()) buckets.remove(e.getKey());
+
+        return bmp;
+    }
+
+    // Returns a bitmap handed out by get() that the decode could not use.
+    synchronized void putBack(Bitmap bmp) {
+        offer(bmp);
+    }
+
+    synchronized void retainCache(Bitmap bmp) {
+        increment(cacheRefs, bmp);
+    }
+
+    synchronized void releaseCache(Bitmap bmp) {
+        if (decrement(cacheRefs, bmp) == 0 && !displayRefs.containsKey(bmp)) offer(bmp);
+    }
+
+    synchronized void retainDisplay(Bitmap bmp) {
+        increment(displayRefs, bmp);
+    }
+
+    synchronized void releaseDisplay(Bitmap bmp) {
+        if (decrement(displayRefs, bmp) == 0 && !cacheRefs.containsKey(bmp)) offer(bmp);
+    }
+
+    synchronized void clear() {
+        buckets.clear();
+        pooled.clear();
+        pooledBytes = 0;
+    }
+
+    private void offer(Bitmap bmp) {
+        if (!bmp.isMutable() || bmp.isRecycled() || pooled.contains(bmp)) return;
+
+        int size = bmp.getAllocationByteCount();
+        if (pooledBytes + size > maxBytes) return; // let the GC have it
+
+        ArrayDeque<Bitmap> bucket = buckets.get(size);
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets.put(size, bucket);
+        }
+        bucket.push(bmp);
+        pooled.add(bmp);
+        pooledBytes += size;
+    }
+
+    private static void increment(Map<Bitmap, Integer> refs, Bitmap bmp) {
+        Integer n = refs.get(bmp);
+        refs.put(bmp, n == null ? 1 : n + 1);
+    }
+
+    // Returns the remaining count (0 once the bitmap is no longer referenced).
+    private static int decrement(Map<Bitmap, Integer> refs, Bitmap bmp) {
+        Integer n = refs.get(bmp);
+        if (n == null || n <= 1) {
+            refs.remove(bmp);
+            return 0;
+        }
+        refs.put(bmp, n - 1);
+        return n - 1;
+    }
+}
@@ -2,7 +2,6 @@ package com.example.culturalcompass.ui.favorites;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.graphics.Bitmap;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.view.LayoutInflater;
@@ -17,16 +16,8 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.culturalcompass.R;
 import com.example.culturalcompass.model.FirestoreAttraction;
-import com.google.android.libraries.places.api.model.PhotoMetadata;
-import com.google.android.libraries.places.api.model.Place;
-import com.google.android.libraries.places.api.net.FetchPhotoRequest;
-import com.google.android.libraries.places.api.net.FetchPlaceRequest;
 import com.google.android.libraries.places.api.net.PlacesClient;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FirebaseFirestore;
-
-import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
@@ -85,43 +76,12 @@ public class FavoritesAdapter extends RecyclerView.Adapter<FavoritesAdapter.Hold
                 ? String.format(Locale.getDefault(), "%.0f m", m)
                 : String.format(Locale.getDefault(), "%.1f km", m / 1000));
 
-        // new logic -> load photo from phone cache and if does not exist call the API
-        h.imgPhoto.setImageResource(R.drawable.ic_landmark_placeholder);
-
-        Bitmap cached = PhotoCacheManager.load(h.itemView.getContext(), a.getId());
-        if (cached != null) {
-            h.imgPhoto.setImageBitmap(cached);
-        } else {
-            h.imgPhoto.setImageResource(R.drawable.ic_landmark_placeholder);
-
-            if (placesClient != null && a.getId() != null) {
-
-                FetchPlaceRequest req = FetchPlaceRequest.builder(
-                        a.getId(),
-                        Arrays.asList(Place.Field.PHOTO_METADATAS)
-                ).build();
-
-                placesClient.fetchPlace(req).addOnSuccessListener(response -> {
-
-                    List<PhotoMetadata> metaList = response.getPlace().getPhotoMetadatas();
-                    if (metaList == null || metaList.isEmpty()) return;
-
-                    PhotoMetadata meta = metaList.get(0);
-
-                    FetchPhotoRequest photoReq = FetchPhotoRequest.builder(meta)
-                            .setMaxWidth(400)
-                            .setMaxHeight(400)
-                            .build();
-
-                    placesClient.fetchPhoto(photoReq).addOnSuccessListener(photoResponse -> {
-                        Bitmap bmp = photoResponse.getBitmap();
-                        PhotoCacheManager.save(h.itemView.getContext(), a.getId(), bmp);
-                        h.imgPhoto.setImageBitmap(bmp);
-                    });
-                });
-            }
-        }
-
+        // load photo from memory / phone cache off the main thread, and if it does not exist
+        // call the API (straight to fetchPhoto when the favorite has a saved photo reference);
+        // the request is dropped if this row gets rebound or recycled
+        PhotoLoader.load(h.imgPhoto, placesClient, a.getId(),
+                PhotoRefs.lookup(a), PhotoCacheManager.SIZE_THUMB);
+        PhotoRefs.showAttributions(h.txtAttributions, a.getPhotoAttributions(), false);
 
         // open description
         h.itemView.setOnClickListener(v -> {
@@ -132,34 +92,38 @@ public class FavoritesAdapter extends RecyclerView.Adapter<FavoritesAdapter.Hold
             if (clickListener != null) clickListener.onFavoriteClicked(a);
         });
 
-        // unfavorite
-        String email = FirebaseAuth.getInstance().getCurrentUser().getEmail();
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-
+        // unfavorite (optimistic, the write is batched by the store)
         h.btnUnfavorite.setOnClickListener(v -> {
-            int index = h.getBindingAdapterPosition();
-            if (index == RecyclerView.NO_POSITION) return;
-
-            db.collection("users")
-                    .document(email)
-                    .collection("favorites")
-                    .document(a.getId())
-                    .delete()
-                    .addOnSuccessListener(x -> {
-                        Toast.makeText(v.getContext(),
-                                "Removed: " + a.getName(),
-                                Toast.LENGTH_SHORT).show();
-
-                        items.remove(index);
-                        notifyItemRemoved(index);
-
-                        if (items.isEmpty() && emptyListener != null) {
-                            emptyListener.onEmpty();
-                        }
-                    });
+            if (h.getBindingAdapterPosition() == RecyclerView.NO_POSITION) return;
+
+            FavoritesStore.get().setFavorite(a, false);
+            Toast.makeText(v.getContext(),
+                    "Removed: " + a.getName(),
+                    Toast.LENGTH_SHORT).show();
+
+            // the live favorites list may already have refreshed: find the row again
+            int index = items.indexOf(a);
+            if (index >= 0) {
+                items.remove(index);
+                notifyItemRemoved(index);
+            }
+
+            if (items.isEmpty() && emptyListener != null) {
+                emptyListener.onEmpty();
+            }
         });
     }
 
+    @Override
+    public void onViewRecycled(@NonNull Holder h) {
+        super.onViewRecycled(h);
+        PhotoLoader.cancel(h.imgPhoto);
+    }
+
+    public FirestoreAttraction getItem(int position) {
+        return items.get(position);
+    }
+
     @Override
     public int getItemCount() {
         return items.size();
@@ -173,7 +137,7 @@ public class FavoritesAdapter extends RecyclerView.Adapter<FavoritesAdapter.Hold
     }
 
     static class Holder extends RecyclerView.ViewHolder {
-        TextView txtName, txtType, txtDistance;
+        TextView txtName, txtType, txtDistance, txtAttributions;
         ImageView imgPhoto, btnUnfavorite;
 
         Holder(@NonNull View v) {
@@ -182,6 +146,7 @@ public class FavoritesAdapter extends RecyclerView.Adapter<FavoritesAdapter.Hold
             txtType = v.findViewById(R.id.txtFavType);
             txtDistance = v.findViewById(R.id.txtFavDistance);
             imgPhoto = v.findViewById(R.id.imgFavPhoto);
+            txtAttributions = v.findViewById(R.id.txtFavPhotoAttributions);
             btnUnfavorite = v.findViewById(R.id.btnUnfavorite);
         }
     }
@@ -1,7 +1,10 @@
 package com.example.culturalcompass.ui.favorites;
 
+import android.Manifest;
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.os.Bundle;
@@ -13,6 +16,7 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -20,36 +24,36 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.culturalcompass.MainActivity;
 import com.example.culturalcompass.R;
 import com.example.culturalcompass.model.FirestoreAttraction;
+import com.example.culturalcompass.ui.description.DescriptionCache;
 import com.example.culturalcompass.ui.description.DescriptionFragment;
+import com.example.culturalcompass.ui.description.DescriptionStream;
+import com.example.culturalcompass.ui.map.DistanceEngine;
+import com.google.android.gms.location.LocationServices;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 
 public class FavoritesFragment extends Fragment {
 
     private RecyclerView recycler;
     private FavoritesAdapter adapter;
+    private PhotoPrefetcher photoPrefetcher;
     private FirebaseFirestore db;
     private String email;
 
     private View emptyContainer;
     private TextView txtEmpty;
 
+    // Latest known position; stored distances are measured from wherever the place was cached
+    private Location lastFix;
+    private List<FirestoreAttraction> favorites = new ArrayList<>();
+
+    private final FavoritesStore.Listener favoritesListener = this::showFavorites;
+
     @SuppressLint("SetTextI18n")
     @Nullable
     @Override
@@ -68,6 +72,15 @@ public class FavoritesFragment extends Fragment {
         adapter = new FavoritesAdapter(new ArrayList<>(), MainActivity.placesClient);
         recycler.setAdapter(adapter);
 
+        // warm the photos of the cards about to scroll into view
+        photoPrefetcher = new PhotoPrefetcher(requireContext(), MainActivity.placesClient,
+                PhotoCacheManager.SIZE_THUMB, R.id.imgFavPhoto, position -> {
+            if (position >= adapter.getItemCount()) return null;
+            FirestoreAttraction a = adapter.getItem(position);
+            return new PhotoPrefetcher.Item(a.getId(), PhotoRefs.lookup(a));
+        });
+        recycler.addOnScrollListener(photoPrefetcher);
+
         adapter.setEmptyListener(() -> emptyContainer.setVisibility(View.VISIBLE));
         adapter.setOnFavoriteClickListener(this::requestAIDescriptionAndOpen);
 
@@ -88,9 +101,44 @@ public class FavoritesFragment extends Fragment {
         }
 
         loadFavorites();
+        loadLastFix();
         return v;
     }
 
+    // Gets the last known position so distances can be shown from where the user is now.
+    private void loadLastFix() {
+        if (ContextCompat.checkSelfPermission(requireContext(),
+                Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+
+        LocationServices.getFusedLocationProviderClient(requireActivity())
+                .getLastLocation()
+                .addOnSuccessListener(location -> {
+                    if (location == null || !isAdded()) return;
+                    lastFix = location;
+                    if (applyLiveDistances(favorites)) {
+                        adapter.notifyItemRangeChanged(0, adapter.getItemCount());
+                    }
+                });
+    }
+
+    // Recomputes distances from the last fix; returns true if anything changed.
+    private boolean applyLiveDistances(List<FirestoreAttraction> list) {
+        if (lastFix == null) return false;
+
+        boolean changed = false;
+        for (FirestoreAttraction a : list) {
+            // favorites saved without coordinates keep their stored distance
+            if (a.getLat() == 0 && a.getLng() == 0) continue;
+
+            a.setDistanceMeters(DistanceEngine.distanceMeters(
+                    lastFix.getLatitude(), lastFix.getLongitude(), a.getLat(), a.getLng()));
+            changed = true;
+        }
+        return changed;
+    }
+
     private boolean isOnline() {
         ConnectivityManager cm =
                 (ConnectivityManager) requireContext().getSystemService(Context.CONNECTIVITY_SERVICE);
@@ -98,131 +146,81 @@ public class FavoritesFragment extends Fragment {
         return net != null && net.isConnected();
     }
 
+    // Favorites come from the live FavoritesStore; the list refreshes whenever it changes.
     private void loadFavorites() {
-        db.collection("users")
-                .document(email)
-                .collection("favorites")
-                .get()
-                .addOnSuccessListener(snapshot -> {
-
-                    List<FirestoreAttraction> list = new ArrayList<>();
-                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
-                        FirestoreAttraction fa = doc.toObject(FirestoreAttraction.class);
-                        if (fa != null) list.add(fa);
-                    }
-
-                    list.sort((a, b) -> {
-                        int countA = a.getRatingCount() != null ? a.getRatingCount() : 0;
-                        int countB = b.getRatingCount() != null ? b.getRatingCount() : 0;
-
-                        boolean aValid = countA >= 2;
-                        boolean bValid = countB >= 2;
-
-                        if (aValid && !bValid) return -1;
-                        if (!aValid && bValid) return 1;
-
-                        double ratingA = a.getRating() != null ? a.getRating() : 0.0;
-                        double ratingB = b.getRating() != null ? b.getRating() : 0.0;
-
-                        int cmp = Double.compare(ratingB, ratingA);
-                        if (cmp != 0) return cmp;
+        FavoritesStore store = FavoritesStore.get();
+        store.start(requireContext(), email);
+        store.addListener(favoritesListener);
 
-                        return Integer.compare(countB, countA);
-                    });
-
-                    adapter.update(list);
-                    emptyContainer.setVisibility(list.isEmpty() ? View.VISIBLE : View.GONE);
-                });
+        if (store.isLoaded()) {
+            showFavorites();
+        }
     }
 
-    private void requestAIDescriptionAndOpen(FirestoreAttraction a) {
+    private void showFavorites() {
+        if (!isAdded()) return;
 
-        if (!isOnline()) {
-            Toast.makeText(requireContext(), "Failed to load description", Toast.LENGTH_SHORT).show();
-            openDescriptionFragment(a, "");
-            return;
+        // copies: the store's objects are its docs and pending writes, and we change distances
+        List<FirestoreAttraction> list = new ArrayList<>();
+        for (FirestoreAttraction a : FavoritesStore.get().getAll()) {
+            list.add(new FirestoreAttraction(a));
         }
 
-        String prompt =
-                "Give me a short friendly explanation (3–5 sentences, no markdown) "
-                        + "about this place: " + a.getName() + ". "
-                        + "It is a " + a.getTypeLabel() + ". "
-                        + "If well-known, include background. "
-                        + "If small, keep it simple. "
-                        + "No coordinates or country names.";
-
-        JSONObject body = new JSONObject();
-        try {
-            JSONArray contents = new JSONArray();
-            JSONObject userObj = new JSONObject();
-            userObj.put("role", "user");
-
-            JSONArray parts = new JSONArray();
-            JSONObject text = new JSONObject();
-            text.put("text", prompt);
-            parts.put(text);
-
-            userObj.put("parts", parts);
-            contents.put(userObj);
-            body.put("contents", contents);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        list.sort((a, b) -> {
+            int countA = a.getRatingCount() != null ? a.getRatingCount() : 0;
+            int countB = b.getRatingCount() != null ? b.getRatingCount() : 0;
 
-        RequestBody reqBody = RequestBody.create(
-                body.toString(),
-                MediaType.parse("application/json; charset=utf-8")
-        );
+            boolean aValid = countA >= 2;
+            boolean bValid = countB >= 2;
 
-        String url =
-                "https://generativelanguage.googleapis.com/v1beta/models/"
-                        + "gemini-2.0-flash:generateContent?key="
-                        + getString(R.string.gemini_api_key);
+            if (aValid && !bValid) return -1;
+            if (!aValid && bValid) return 1;
 
-        Request request = new Request.Builder()
-                .url(url)
-                .post(reqBody)
-                .build();
+            double ratingA = a.getRating() != null ? a.getRating() : 0.0;
+            double ratingB = b.getRating() != null ? b.getRating() : 0.0;
 
-        new OkHttpClient().newCall(request).enqueue(new Callback() {
+            int cmp = Double.compare(ratingB, ratingA);
+            if (cmp != 0) return cmp;
 
-            @Override
-            public void onFailure(@NonNull okhttp3.Call call, @NonNull IOException e) {
-                if (!isAdded()) return;
-                requireActivity().runOnUiThread(() ->
-                        Toast.makeText(requireContext(), "Failed to load description", Toast.LENGTH_SHORT).show());
-                openDescriptionFragment(a, "");
-            }
+            return Integer.compare(countB, countA);
+        });
 
-            @Override
-            public void onResponse(@NonNull okhttp3.Call call,
-                                   @NonNull Response response) throws IOException {
+        favorites = list;
+        applyLiveDistances(list);
+        adapter.update(list);
+        emptyContainer.setVisibility(list.isEmpty() ? View.VISIBLE : View.GONE);
+    }
 
-                String json = response.body().string();
-                String desc = parseGeminiDescription(json);
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (photoPrefetcher != null) photoPrefetcher.cancelAll();
+        // recycles the visible cards so onViewRecycled releases their photos
+        if (recycler != null) recycler.setAdapter(null);
+        FavoritesStore.get().removeListener(favoritesListener);
+    }
 
-                if (!isAdded()) return;
+    private void requestAIDescriptionAndOpen(FirestoreAttraction a) {
 
-                requireActivity().runOnUiThread(() ->
-                        openDescriptionFragment(a, desc));
-            }
-        });
-    }
+        String cached = DescriptionCache.get(requireContext()).lookup(a.getId());
+        if (cached != null) {
+            openDescriptionFragment(a, cached, null);
+            return;
+        }
 
-    private String parseGeminiDescription(String json) {
-        try {
-            JSONObject obj = new JSONObject(json);
-            JSONArray candidates = obj.getJSONArray("candidates");
-            JSONObject content = candidates.getJSONObject(0).getJSONObject("content");
-            JSONArray parts = content.getJSONArray("parts");
-            return parts.getJSONObject(0).getString("text").trim();
-        } catch (Exception e) {
-            return "No description available.";
+        if (!isOnline()) {
+            Toast.makeText(requireContext(), "Failed to load description", Toast.LENGTH_SHORT).show();
+            openDescriptionFragment(a, "", null);
+            return;
         }
+
+        // open right away, the description streams in on the next screen
+        String prompt = DescriptionCache.prompt(a.getName(), a.getTypeLabel());
+        DescriptionStream.start(requireContext(), a.getId(), prompt);
+        openDescriptionFragment(a, "", prompt);
     }
 
-    private void openDescriptionFragment(FirestoreAttraction a, String aiText) {
+    private void openDescriptionFragment(FirestoreAttraction a, String aiText, String prompt) {
         DescriptionFragment fragment = DescriptionFragment.newInstance(
                 a.getId(),
                 a.getName(),
@@ -231,7 +229,9 @@ public class FavoritesFragment extends Fragment {
                 a.getDistanceMeters(),
                 a.getRating(),
                 a.getRatingCount(),
-                aiText
+                PhotoRefs.lookup(a),
+                aiText,
+                prompt
         );
 
         requireActivity().getSupportFragmentManager()
@@ -0,0 +1,159 @@
+package com.example.culturalcompass.ui.favorites;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import com.example.culturalcompass.model.FirestoreAttraction;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Process-wide view of the user's favorites, kept current by a single Firestore snapshot
+// listener on users/{email}/favorites. Screens ask isFavorite() in O(1) instead of reading
+// the collection themselves. Toggles go through setFavorite(): they show up immediately and
+// are written in coalesced batches by FavoritesWriteQueue. All calls and callbacks happen on
+// the main thread.
+public class FavoritesStore {
+
+    public interface Listener {
+        void onFavoritesChanged();
+    }
+
+    private static FavoritesStore instance;
+
+    private final Set<String> ids = new HashSet<>();
+    private final Map<String, FirestoreAttraction> docs = new LinkedHashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    @Nullable private String email;
+    @Nullable private ListenerRegistration registration;
+    @Nullable private FavoritesWriteQueue writeQueue;
+    private boolean loaded = false;
+    private boolean serverConfirmed = false; // a snapshot came from the server, not just the cache
+
+    public static synchronized FavoritesStore get() {
+        if (instance == null) {
+            instance = new FavoritesStore();
+        }
+        return instance;
+    }
+
+    private FavoritesStore() {
+    }
+
+    // Starts listening for this user's favorites; no-op if already listening for them.
+    public void start(Context ctx, String userEmail) {
+        if (userEmail == null || userEmail.equals(email)) return;
+
+        stop();
+        email = userEmail;
+
+        if (writeQueue == null) {
+            writeQueue = new FavoritesWriteQueue(ctx, new FavoritesWriteQueue.ServerState() {
+                @Override
+                public boolean isConfirmed() {
+                    return serverConfirmed;
+                }
+
+                @Override
+                public boolean isFavoriteOnServer(String placeId) {
+                    return ids.contains(placeId);
+                }
+            });
+        }
+        writeQueue.attach(userEmail);
+
+        registration = FirebaseFirestore.getInstance()
+                .collection("users")
+                .document(userEmail)
+                .collection("favorites")
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null || snapshot == null) return;
+
+                    ids.clear();
+                    docs.clear();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        ids.add(doc.getId());
+                        FirestoreAttraction fa = doc.toObject(FirestoreAttraction.class);
+                        if (fa != null) docs.put(doc.getId(), fa);
+                    }
+                    loaded = true;
+                    if (!snapshot.getMetadata().isFromCache()) serverConfirmed = true;
+                    notifyListeners();
+                });
+    }
+
+    // Stops listening and forgets the current user's favorites (logout).
+    public void stop() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        if (writeQueue != null) {
+            writeQueue.detach();
+        }
+        email = null;
+        ids.clear();
+        docs.clear();
+        loaded = false;
+        serverConfirmed = false;
+        notifyListeners();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Includes toggles that are still waiting to be written.
+    public boolean isFavorite(String placeId) {
+        if (placeId == null) return false;
+
+        Boolean pending = writeQueue != null ? writeQueue.pendingState(placeId) : null;
+        return pending != null ? pending : ids.contains(placeId);
+    }
+
+    // Copy of the favorite documents in Firestore order, with pending toggles applied.
+    public List<FirestoreAttraction> getAll() {
+        Map<String, FirestoreAttraction> merged = new LinkedHashMap<>(docs);
+        if (writeQueue != null) {
+            for (Map.Entry<String, FavoritesWriteQueue.Change> e : writeQueue.pendingChanges().entrySet()) {
+                if (e.getValue().favorite) {
+                    if (!merged.containsKey(e.getKey())) merged.put(e.getKey(), e.getValue().data);
+                } else {
+                    merged.remove(e.getKey());
+                }
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    // Optimistic toggle: listeners see the new state right away, the write follows in a batch.
+    public void setFavorite(FirestoreAttraction fa, boolean favorite) {
+        if (email == null || writeQueue == null || fa == null || fa.getId() == null) return;
+
+        writeQueue.enqueue(fa, favorite);
+        notifyListeners();
+    }
+
+    public void addListener(Listener l) {
+        if (!listeners.contains(l)) listeners.add(l);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    private void notifyListeners() {
+        for (Listener l : new ArrayList<>(listeners)) {
+            l.onFavoritesChanged();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.culturalcompass.ui.favorites;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.culturalcompass.model.FirestoreAttraction;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Coalesces favorite toggles per placeId and writes only the net change in one WriteBatch.
+// Rapid taps within COALESCE_MS collapse into a single set/delete, and pending changes are
+// journaled to disk so they survive process death. Used through FavoritesStore on the main thread.
+class FavoritesWriteQueue {
+
+    private static final String TAG = "FavoritesWriteQueue";
+    private static final String JOURNAL = "favorites_journal.json";
+
+    private static final long COALESCE_MS = 1500;
+    private static final long RETRY_MS = 30_000;
+
+    interface ServerState {
+        // False until a snapshot from the server (not the local cache) has arrived;
+        // before that isFavoriteOnServer() cannot be trusted.
+        boolean isConfirmed();
+
+        // Favorite state as last confirmed by the snapshot listener.
+        boolean isFavoriteOnServer(String placeId);
+    }
+
+    // Net desired state for one place.
+    static class Change {
+        final boolean favorite;
+        final FirestoreAttraction data;
+
+        Change(boolean favorite, FirestoreAttraction data) {
+            this.favorite = favorite;
+            this.data = data;
+        }
+    }
+
+    private final File journal;
+    private final ServerState serverState;
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+    private final Runnable flushRunnable = this::flush;
+
+    private final Map<String, Change> pending = new LinkedHashMap<>();
+    @Nullable private String email;
+    // the batch being committed; offline it stays unresolved until the connection is back
+    @Nullable private Task<Void> committing;
+
+    FavoritesWriteQueue(Context ctx, ServerState serverState) {
+        this.journal = new File(ctx.getApplicationContext().getFilesDir(), JOURNAL);
+        this.serverState = serverState;
+    }
+
+    // Switches to a user and replays whatever was left in the journal for them.
+    void attach(String userEmail) {
+        main.removeCallbacks(flushRunnable);
+        pending.clear();
+        email = userEmail;
+
+        io.execute(() -> {
+            Map<String, Change> restored = readJournal(userEmail);
+            if (restored.isEmpty()) return;
+
+            main.post(() -> {
+                if (!userEmail.equals(email)) return;
+                for (Map.Entry<String, Change> e : restored.entrySet()) {
+                    // taps made since attach() win over the journal
+                    if (!pending.containsKey(e.getKey())) pending.put(e.getKey(), e.getValue());
+                }
+                flush();
+            });
+        });
+    }
+
+    // Logout or user switch. What is still pending is written now, while signed in:
+    // Firestore keeps queued writes across restarts, so they no longer depend on the same
+    // user logging in again. An old commit still in flight must not hold back the next user.
+    void detach() {
+        main.removeCallbacks(flushRunnable);
+        committing = null;
+        flush();
+        committing = null; // its completion is ignored, it belongs to the old user
+
+        pending.clear();
+        email = null;
+        io.execute(journal::delete);
+    }
+
+    // Records the latest desired state and (re)starts the coalescing window.
+    void enqueue(FirestoreAttraction fa, boolean favorite) {
+        if (email == null || fa.getId() == null) return;
+
+        pending.put(fa.getId(), new Change(favorite, fa));
+        persist();
+
+        main.removeCallbacks(flushRunnable);
+        main.postDelayed(flushRunnable, COALESCE_MS);
+    }
+
+    // Optimistic state for a place, or null if nothing is pending for it.
+    @Nullable
+    Boolean pendingState(String placeId) {
+        Change c = pending.get(placeId);
+        return c != null ? c.favorite : null;
+    }
+
+    Map<String, Change> pendingChanges() {
+        return pending;
+    }
+
+    private void flush() {
+        // one batch at a time keeps the final order deterministic; the running commit
+        // flushes again when it completes
+        if (email == null || pending.isEmpty() || committing != null) return;
+
+        String userEmail = email;
+        CollectionReference favorites = FirebaseFirestore.getInstance()
+                .collection("users")
+                .document(userEmail)
+                .collection("favorites");
+
+        Map<String, Change> flushed = new LinkedHashMap<>(pending);
+        Map<String, Change> writes = netWrites(flushed, serverState);
+
+        if (writes.isEmpty()) {
+            pending.clear();
+            persist();
+            return;
+        }
+
+        WriteBatch batch = FirebaseFirestore.getInstance().batch();
+        for (Map.Entry<String, Change> e : writes.entrySet()) {
+            if (e.getValue().favorite) {
+                batch.set(favorites.document(e.getKey()), e.getValue().data);
+            } else {
+                batch.delete(favorites.document(e.getKey()));
+            }
+        }
+
+        Task<Void> commit = batch.commit();
+        committing = commit;
+        commit.addOnCompleteListener(t -> {
+            if (committing != commit) return; // detached meanwhile
+            committing = null;
+
+            if (!t.isSuccessful()) {
+                Log.w(TAG, "Favorites batch failed, retrying later", t.getException());
+                main.removeCallbacks(flushRunnable);
+                main.postDelayed(flushRunnable, RETRY_MS);
+                return;
+            }
+
+            // drop entries that were not toggled again while committing
+            for (Map.Entry<String, Change> e : flushed.entrySet()) {
+                if (pending.get(e.getKey()) == e.getValue()) pending.remove(e.getKey());
+            }
+            persist();
+
+            // taps that came in while committing, unless their window is still open
+            if (!pending.isEmpty() && !main.hasCallbacks(flushRunnable)) flush();
+        });
+    }
+
+    // The changes that actually need a write, in tap order.
+    static Map<String, Change> netWrites(Map<String, Change> changes, ServerState serverState) {
+        Map<String, Change> out = new LinkedHashMap<>();
+
+        // Right after login (or a journal replay) the snapshot is usually not there yet.
+        // Without it we can't tell what is a no-op, so everything is written: set and
+        // delete are idempotent, a dropped un-favorite is not.
+        boolean canCompare = serverState.isConfirmed();
+
+        for (Map.Entry<String, Change> e : changes.entrySet()) {
+            // toggled back to what the server already has: nothing to write
+            if (canCompare && e.getValue().favorite == serverState.isFavoriteOnServer(e.getKey())) continue;
+            out.put(e.getKey(), e.getValue());
+        }
+        return out;
+    }
+
+    // ----------------- journal -----------------
+
+    private void persist() {
+        String userEmail = email;
+        if (userEmail == null) return;
+
+        List<Map.Entry<String, Change>> snapshot = new ArrayList<>(pending.entrySet());
+        io.execute(() -> writeJournal(userEmail, snapshot));
+    }
+
+    private void writeJournal(String userEmail, List<Map.Entry<String, Change>> entries) {
+        try {
+            if (entries.isEmpty()) {
+                journal.delete();
+                return;
+            }
+
+            String json = encodeJournal(userEmail, entries);
+
+            // write to a temp file first so a crash never leaves a half-written journal
+            File tmp = new File(journal.getPath() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                out.write(json.getBytes(StandardCharsets.UTF_8));
+                out.getFD().sync();
+            }
+            if (!tmp.renameTo(journal)) {
+                Log.w(TAG, "Could not replace favorites journal");
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to write favorites journal", e);
+        }
+    }
+
+    private Map<String, Change> readJournal(String userEmail) {
+        Map<String, Change> out = new LinkedHashMap<>();
+        if (!journal.exists()) return out;
+
+        try (FileInputStream in = new FileInputStream(journal)) {
+            byte[] bytes = new byte[(int) journal.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                int n = in.read(bytes, read, bytes.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+
+            out = decodeJournal(userEmail, new String(bytes, 0, read, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            Log.w(TAG, "Dropping unreadable favorites journal", e);
+            journal.delete();
+        }
+        return out;
+    }
+
+    static String encodeJournal(String userEmail, List<Map.Entry<String, Change>> entries)
+            throws JSONException {
+        JSONArray arr = new JSONArray();
+        for (Map.Entry<String, Change> e : entries) {
+            FirestoreAttraction fa = e.getValue().data;
+            JSONObject o = new JSONObject();
+            o.put("favorite", e.getValue().favorite);
+            o.put("id", e.getKey());
+            o.put("name", fa.getName());
+            o.put("lat", fa.getLat());
+            o.put("lng", fa.getLng());
+            o.put("distanceMeters", fa.getDistanceMeters());
+            o.put("typeLabel", fa.getTypeLabel());
+            o.put("primaryTypeKey", fa.getPrimaryTypeKey());
+            if (fa.getRating() != null) o.put("rating", fa.getRating());
+            if (fa.getRatingCount() != null) o.put("ratingCount", fa.getRatingCount());
+            if (fa.getPhotoRef() != null) o.put("photoRef", fa.getPhotoRef());
+            if (fa.getPhotoWidth() != null) o.put("photoWidth", fa.getPhotoWidth());
+            if (fa.getPhotoHeight() != null) o.put("photoHeight", fa.getPhotoHeight());
+            if (fa.getPhotoAttributions() != null) o.put("photoAttributions", fa.getPhotoAttributions());
+            arr.put(o);
+        }
+
+        JSONObject root = new JSONObject();
+        root.put("email", userEmail);
+        root.put("changes", arr);
+        return root.toString();
+    }
+
+    // Changes journaled for userEmail; empty if the journal belongs to someone else.
+    static Map<String, Change> decodeJournal(String userEmail, String json) throws JSONException {
+        Map<String, Change> out = new LinkedHashMap<>();
+        JSONObject root = new JSONObject(json);
+        if (!userEmail.equals(root.optString("email"))) return out; // another user's taps
+
+        JSONArray arr = root.getJSONArray("changes");
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject o = arr.getJSONObject(i);
+            FirestoreAttraction fa = new FirestoreAttraction(
+                    o.getString("id"),
+                    o.optString("name", null),
+                    o.optDouble("lat", 0),
+                    o.optDouble("lng", 0),
+                    o.optDouble("distanceMeters", 0),
+                    o.optString("typeLabel", null),
+                    o.optString("primaryTypeKey", null),
+                    o.has("rating") ? o.getDouble("rating") : null,
+                    o.has("ratingCount") ? o.getInt("ratingCount") : null
+            );
+            fa.setPhotoRef(o.optString("photoRef", null));
+            fa.setPhotoWidth(o.has("photoWidth") ? o.getInt("photoWidth") : null);
+            fa.setPhotoHeight(o.has("photoHeight") ? o.getInt("photoHeight") : null);
+            fa.setPhotoAttributions(o.optString("photoAttributions", null));
+            out.put(fa.getId(), new Change(o.getBoolean("favorite"), fa));
+        }
+        return out;
+    }
+}
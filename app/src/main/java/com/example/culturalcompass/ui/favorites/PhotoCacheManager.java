@@ -1,37 +1,185 @@
 package com.example.culturalcompass.ui.favorites;
 
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.util.LruCache;
 
 import java.io.File;
-import java.io.FileOutputStream;
 
+// Two-tier photo cache: decoded bitmaps in a memory LRU in front of the JPEGs in PhotoDiskCache.
+// Repeat binds of the same place are served from memory instead of decoding again.
+// Bitmaps evicted from memory go to a BitmapPool once no view shows them, and disk decodes
+// reuse them through inBitmap. Every bitmap handed out by peek()/load() carries one display
+// reference for the caller, who must either show it through PhotoLoader or release() it.
 public class PhotoCacheManager {
 
-    private static final String DIR = "fav_photos"; // folder where we store cached images
+    // share of the app's heap budget the memory tier may use
+    private static final int MEMORY_FRACTION = 8;
+    // and the share the reuse pool may keep on top of that
+    private static final int POOL_FRACTION = 16;
+
+    private static LruCache<String, Bitmap> memory;
+    private static BitmapPool pool;
+
+    private static synchronized LruCache<String, Bitmap> memory(Context ctx) {
+        if (memory == null) {
+            ActivityManager am = (ActivityManager) ctx.getSystemService(Context.ACTIVITY_SERVICE);
+            int maxKb = am.getMemoryClass() * 1024 / MEMORY_FRACTION;
+
+            pool = new BitmapPool(am.getMemoryClass() * 1024L * 1024L / POOL_FRACTION);
+            memory = new LruCache<String, Bitmap>(maxKb) {
+                @Override
+                protected int sizeOf(String key, Bitmap value) {
+                    return value.getAllocationByteCount() / 1024; // measured in KB
+                }
+
+                @Override
+                protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                    if (oldValue != newValue) pool.releaseCache(oldValue);
+                }
+            };
+        }
+        return memory;
+    }
+
+    // All cache mutations go through here so cache references and evictions stay in step.
+    private static synchronized void cachePut(Context ctx, String key, Bitmap bmp) {
+        LruCache<String, Bitmap> cache = memory(ctx);
+        if (cache.get(key) == bmp) return;
+        pool.retainCache(bmp);
+        cache.put(key, bmp);
+    }
+
+    private static synchronized Bitmap cacheGetRetained(Context ctx, String key) {
+        Bitmap bmp = memory(ctx).get(key);
+        if (bmp != null) pool.retainDisplay(bmp);
+        return bmp;
+    }
+
+    // A view starts showing a bitmap it did not get from peek()/load() (e.g. a Places response).
+    static synchronized void retain(Bitmap bmp) {
+        if (pool != null) pool.retainDisplay(bmp);
+    }
+
+    // A view stopped showing the bitmap, or a caller does not need what peek()/load() returned.
+    static synchronized void release(Bitmap bmp) {
+        if (pool != null) pool.releaseDisplay(bmp);
+    }
+
+    // Every photo is cached per fetch size, so a list thumbnail never stands in for the
+    // detail photo and a row never decodes the large variant at full size.
+    public static final int SIZE_THUMB = 400;
+    public static final int SIZE_LARGE = 800;
+    private static final int[] SIZES = {SIZE_THUMB, SIZE_LARGE};
+
+    private static String key(String placeId, int maxPx) {
+        return placeId + "_" + maxPx;
+    }
+
+    // Memory tier only; cheap enough for the main thread.
+    public static Bitmap peek(Context ctx, String placeId, int maxPx) {
+        return cacheGetRetained(ctx, key(placeId, maxPx));
+    }
+
+    // Puts a freshly fetched bitmap in the memory tier without touching the disk.
+    public static void remember(Context ctx, String placeId, int maxPx, Bitmap bmp) {
+        cachePut(ctx, key(placeId, maxPx), bmp);
+    }
+
+    // May decode from disk: call it off the main thread. Uses the maxPx variant, or a larger
+    // one, decoded with inSampleSize so the bitmap is no bigger than the reqWidth x reqHeight view.
+    public static Bitmap load(Context ctx, String placeId, int maxPx, int reqWidth, int reqHeight) {
+        // memory first
+        String memKey = key(placeId, maxPx);
+        Bitmap bmp = cacheGetRetained(ctx, memKey);
+        if (bmp != null) return bmp;
 
-    public static Bitmap load(Context ctx, String placeId) {
         // try to load the saved photo for this place
-        File file = new File(ctx.getCacheDir(), DIR + "/" + placeId + ".jpg");
-        if (!file.exists()) return null; // nothing saved yet
-        return BitmapFactory.decodeFile(file.getAbsolutePath()); // return cached image
+        for (int size : SIZES) {
+            if (size < maxPx) continue;
+
+            File file = PhotoDiskCache.get(ctx).get(key(placeId, size));
+            if (file == null) continue; // nothing saved yet (or evicted)
+
+            bmp = decodeSampled(file, reqWidth, reqHeight);
+            if (bmp != null) {
+                synchronized (PhotoCacheManager.class) {
+                    // hold the caller's reference before the cache can evict it again
+                    pool.retainDisplay(bmp);
+                    cachePut(ctx, memKey, bmp);
+                }
+                return bmp; // return cached image
+            }
+        }
+        return null;
     }
 
-    public static void save(Context ctx, String placeId, Bitmap bmp) {
+    // Compresses to disk: call it off the main thread.
+    public static void save(Context ctx, String placeId, int maxPx, Bitmap bmp) {
+        cachePut(ctx, key(placeId, maxPx), bmp);
+
+        // save the bitmap as a jpg in the size-bounded disk cache (ignore errors, it's just a cache)
+        PhotoDiskCache.get(ctx).put(key(placeId, maxPx), out ->
+                bmp.compress(Bitmap.CompressFormat.JPEG, 85, out)); // compress to keep the file small
+    }
+
+    private static Bitmap decodeSampled(File file, int reqWidth, int reqHeight) {
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), opts);
+        if (opts.outWidth <= 0 || opts.outHeight <= 0) return null;
+
+        opts.inSampleSize = sampleSize(opts.outWidth, opts.outHeight, reqWidth, reqHeight);
+        opts.inJustDecodeBounds = false;
+        opts.inMutable = true; // so the result can be pooled later
+
+        // decode into a pooled bitmap when one is big enough (ARGB_8888, dimensions rounded up)
+        int w = (opts.outWidth + opts.inSampleSize - 1) / opts.inSampleSize;
+        int h = (opts.outHeight + opts.inSampleSize - 1) / opts.inSampleSize;
+        Bitmap reuse;
+        synchronized (PhotoCacheManager.class) {
+            reuse = pool.get(w * h * 4);
+        }
+        opts.inBitmap = reuse;
+
         try {
-            // make sure the cache folder exists
-            File dir = new File(ctx.getCacheDir(), DIR);
-            if (!dir.exists()) dir.mkdirs();
-
-            // save the bitmap to a local jpg file
-            File file = new File(dir, placeId + ".jpg");
-            FileOutputStream out = new FileOutputStream(file);
-            bmp.compress(Bitmap.CompressFormat.JPEG, 85, out); // compress to keep the file small
-            out.flush();
-            out.close();
-        } catch (Exception ignored) {
-            // ignore errors, it's just a cache
+            return BitmapFactory.decodeFile(file.getAbsolutePath(), opts);
+        } catch (IllegalArgumentException e) {
+            // the pooled bitmap did not fit after all: decode into a fresh one
+            if (reuse != null) {
+                synchronized (PhotoCacheManager.class) {
+                    pool.putBack(reuse);
+                }
+            }
+            opts.inBitmap = null;
+            return BitmapFactory.decodeFile(file.getAbsolutePath(), opts);
+        }
+    }
+
+    // Largest power of two that still leaves both sides covering the view (centerCrop).
+    static int sampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int sample = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) return sample;
+
+        while (width / (sample * 2) >= reqWidth && height / (sample * 2) >= reqHeight) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    // Called from ComponentCallbacks2.onTrimMemory: give memory back, the disk tier stays.
+    public static synchronized void trimMemory(int level) {
+        if (memory == null) return;
+
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            memory.evictAll(); // app is in the background and likely to be killed
+            pool.clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            memory.trimToSize(memory.maxSize() / 2);
+            pool.clear();
         }
     }
 }
@@ -0,0 +1,299 @@
+package com.example.culturalcompass.ui.favorites;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Size-bounded LRU store for the photo JPEGs in cacheDir/fav_photos.
+// Entries and their access order are recorded in an append-only journal, so the LRU order
+// survives restarts without stat-ing every file. Writes go to a temp file that is renamed
+// into place, so readers never see a half-written JPEG. When the total size goes over the
+// budget, the least recently used files are deleted.
+public class PhotoDiskCache {
+
+    private static final String TAG = "PhotoDiskCache";
+    private static final String DIR = "fav_photos";
+    private static final String JOURNAL = "journal";
+    private static final String SUFFIX = ".jpg";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final long MAX_BYTES = 50L * 1024 * 1024;
+
+    // rewrite the journal once it holds this many more lines than live entries
+    private static final int COMPACT_THRESHOLD = 2000;
+
+    // writes the bytes of one entry
+    public interface EntryWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private static PhotoDiskCache instance;
+
+    private final File dir;
+    private final File journalFile;
+
+    // key -> size in bytes, in access order (eldest first)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes = 0;
+    private final long maxBytes;
+    private int journalLines = 0;
+    @Nullable private Writer journal;
+
+    public static synchronized PhotoDiskCache get(Context ctx) {
+        if (instance == null) {
+            instance = new PhotoDiskCache(
+                    new File(ctx.getApplicationContext().getCacheDir(), DIR), MAX_BYTES);
+        }
+        return instance;
+    }
+
+    PhotoDiskCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.journalFile = new File(dir, JOURNAL);
+        this.maxBytes = maxBytes;
+        open();
+    }
+
+    // The cached file for this key, or null on a miss. Counts as a use for LRU.
+    @Nullable
+    public synchronized File get(String key) {
+        // get(), not containsKey(): only get() moves the entry in the access order
+        if (entries.get(key) == null) return null;
+
+        File file = fileFor(key);
+        if (!file.exists()) {
+            // cleared behind our back (e.g. by the OS)
+            remove(key);
+            return null;
+        }
+
+        appendJournal("R " + key);
+        return file;
+    }
+
+    // Writes an entry atomically (temp file + rename), then evicts down to the budget.
+    // The (slow) write happens outside the lock so readers are never stuck behind a compress;
+    // only the rename and the index/journal update are synchronized.
+    public boolean put(String key, EntryWriter writer) {
+        if (!dir.exists() && !dir.mkdirs()) return false;
+
+        File tmp = null;
+        try {
+            // unique name, two writers of the same key must not share a temp file
+            tmp = File.createTempFile(key + ".", TMP_SUFFIX, dir);
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                writer.write(out);
+            }
+        } catch (IOException e) {
+            if (tmp != null) tmp.delete();
+            return false;
+        }
+
+        synchronized (this) {
+            File file = fileFor(key);
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                return false;
+            }
+
+            long length = file.length();
+            Long previous = entries.put(key, length);
+            if (previous != null) totalBytes -= previous;
+            totalBytes += length;
+            appendJournal("P " + key + " " + length);
+
+            trimToSize(maxBytes);
+        }
+        return true;
+    }
+
+    public synchronized void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) totalBytes -= size;
+        fileFor(key).delete();
+        appendJournal("D " + key);
+    }
+
+    synchronized long size() {
+        return totalBytes;
+    }
+
+    private void trimToSize(long budget) {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > budget && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            fileFor(eldest.getKey()).delete();
+            appendJournal("D " + eldest.getKey());
+        }
+    }
+
+    private File fileFor(String key) {
+        return new File(dir, key + SUFFIX);
+    }
+
+    // ----------------- journal -----------------
+
+    private void open() {
+        if (!dir.exists()) dir.mkdirs();
+
+        boolean journalExisted = journalFile.exists();
+        readJournal();
+        reconcileFiles(journalExisted);
+
+        // journal lines that do not correspond to a live entry are garbage
+        if (journalLines - entries.size() > COMPACT_THRESHOLD || !journalFile.exists()) {
+            rewriteJournal();
+        }
+        trimToSize(maxBytes);
+    }
+
+    private void readJournal() {
+        if (!journalFile.exists()) return;
+
+        try (BufferedReader in = new BufferedReader(new FileReader(journalFile))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                journalLines++;
+                String[] parts = line.split(" ");
+                if (parts.length < 2) continue;
+
+                String key = parts[1];
+                switch (parts[0]) {
+                    case "P":
+                        if (parts.length < 3) break;
+                        Long prev = entries.put(key, Long.parseLong(parts[2]));
+                        if (prev != null) totalBytes -= prev;
+                        totalBytes += Long.parseLong(parts[2]);
+                        break;
+                    case "R":
+                        entries.get(key); // touch for access order
+                        break;
+                    case "D":
+                        Long size = entries.remove(key);
+                        if (size != null) totalBytes -= size;
+                        break;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            Log.w(TAG, "Journal unreadable, rebuilding from files", e);
+            entries.clear();
+            totalBytes = 0;
+        }
+
+        // drop entries whose file is gone
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> e = it.next();
+            if (!fileFor(e.getKey()).exists()) {
+                totalBytes -= e.getValue();
+                it.remove();
+            }
+        }
+    }
+
+    // Deletes stale temps and handles photo files the journal does not know about.
+    // Without a journal they predate it: photos were then stored as <placeId>.jpg, a key no
+    // lookup uses any more, so they are deleted. With one (lost lines, unreadable journal)
+    // they are current entries and adopted, oldest first.
+    private void reconcileFiles(boolean journalExisted) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+
+        List<File> unknown = new ArrayList<>();
+        for (File f : files) {
+            String name = f.getName();
+            if (name.endsWith(TMP_SUFFIX)) {
+                f.delete(); // interrupted write
+            } else if (name.endsWith(SUFFIX)) {
+                String key = name.substring(0, name.length() - SUFFIX.length());
+                if (entries.containsKey(key)) continue;
+
+                if (journalExisted) {
+                    unknown.add(f);
+                } else {
+                    f.delete(); // legacy <placeId>.jpg
+                }
+            }
+        }
+        if (unknown.isEmpty()) return;
+
+        File[] sorted = unknown.toArray(new File[0]);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+
+        // adopted files are older than anything journaled, so they go first in LRU order
+        LinkedHashMap<String, Long> merged = new LinkedHashMap<>(64, 0.75f, true);
+        for (File f : sorted) {
+            String name = f.getName();
+            merged.put(name.substring(0, name.length() - SUFFIX.length()), f.length());
+            totalBytes += f.length();
+        }
+        merged.putAll(entries);
+        entries.clear();
+        entries.putAll(merged);
+        journalLines = Integer.MAX_VALUE; // force a rewrite
+    }
+
+    private void rewriteJournal() {
+        closeJournal();
+
+        File tmp = new File(dir, JOURNAL + TMP_SUFFIX);
+        try (Writer out = new BufferedWriter(new FileWriter(tmp))) {
+            for (Map.Entry<String, Long> e : entries.entrySet()) {
+                out.write("P " + e.getKey() + " " + e.getValue() + "\n");
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            return; // ignore errors, it's just a cache
+        }
+
+        if (tmp.renameTo(journalFile)) {
+            journalLines = entries.size();
+        }
+    }
+
+    private void appendJournal(String line) {
+        try {
+            if (journal == null) {
+                journal = new BufferedWriter(new FileWriter(journalFile, true));
+            }
+            journal.write(line);
+            journal.write('\n');
+            journal.flush();
+            journalLines++;
+        } catch (IOException e) {
+            closeJournal(); // ignore errors, it's just a cache
+        }
+
+        if (journalLines - entries.size() > COMPACT_THRESHOLD) {
+            rewriteJournal();
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException ignored) {
+        }
+        journal = null;
+    }
+}
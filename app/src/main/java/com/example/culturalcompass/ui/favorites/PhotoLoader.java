@@ -0,0 +1,360 @@
+package com.example.culturalcompass.ui.favorites;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.widget.ImageView;
+
+import androidx.annotation.Nullable;
+
+import com.example.culturalcompass.R;
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.android.libraries.places.api.model.PhotoMetadata;
+import com.google.android.libraries.places.api.model.Place;
+import com.google.android.libraries.places.api.net.FetchPhotoRequest;
+import com.google.android.libraries.places.api.net.FetchPhotoResponse;
+import com.google.android.libraries.places.api.net.FetchPlaceRequest;
+import com.google.android.libraries.places.api.net.PlacesClient;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Loads a place photo into an ImageView without blocking the main thread.
+// Order: memory cache (synchronous) -> disk decode (background) -> Places fetch.
+// Each request is tagged on its ImageView; binding the view to another place or calling
+// cancel() (e.g. from onViewRecycled) cancels it, and results are only delivered if the
+// view still belongs to the same request.
+// Bitmaps are shown through show(), which keeps the display references that stop the
+// BitmapPool from reusing a bitmap that is still on screen.
+// Network work is shared: every caller that wants the same placeId and size at the same
+// time (list row, favorites grid, details screen) attaches to one in-flight job, and
+// fetchPlace(PHOTO_METADATAS) is shared per placeId. A job is only cancelled once the
+// last caller waiting on it lets go.
+// A photo reference handed in by the caller can be stale; if fetchPhoto fails with it, the
+// job falls back to fetchPlace + fetchPhoto.
+public final class PhotoLoader {
+
+    private static final ExecutorService DISK = Executors.newFixedThreadPool(2);
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    // prefetch work runs on its own low-priority thread so it never delays visible rows
+    private static final ExecutorService PREFETCH = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            r.run();
+        }, "photo-prefetch");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final int MAX_PREFETCH_FETCHES = 2;
+    private static int prefetchFetches = 0;
+
+    // in-flight network jobs, main thread only
+    private static final Map<String, InFlight<Bitmap>> PHOTOS = new HashMap<>();
+    private static final Map<String, InFlight<PhotoMetadata>> METADATA = new HashMap<>();
+
+    private PhotoLoader() {
+    }
+
+    // One shared network job and the number of callers still waiting on it.
+    private static class InFlight<T> {
+        final String key;
+        final Map<String, InFlight<T>> owner;
+        final CancellationTokenSource cancel = new CancellationTokenSource();
+        final TaskCompletionSource<T> result = new TaskCompletionSource<>(cancel.getToken());
+        int waiters = 0;
+        @Nullable InFlight<PhotoMetadata> upstream; // metadata job this photo job waits on
+
+        InFlight(String key, Map<String, InFlight<T>> owner) {
+            this.key = key;
+            this.owner = owner;
+        }
+    }
+
+    private static class Request {
+        final String placeId;
+        final int maxPx;
+        @Nullable InFlight<Bitmap> job;
+        volatile boolean cancelled = false;
+
+        Request(String placeId, int maxPx) {
+            this.placeId = placeId;
+            this.maxPx = maxPx;
+        }
+    }
+
+    // maxPx is the fetch size (PhotoCacheManager.SIZE_THUMB / SIZE_LARGE) and the cache variant.
+    // meta may be null: the photo metadata is then looked up with fetchPlace first.
+    public static void load(ImageView target, @Nullable PlacesClient client, String placeId,
+                            @Nullable PhotoMetadata meta, int maxPx) {
+        cancelRequest(target);
+
+        if (placeId == null) {
+            showPlaceholder(target);
+            return;
+        }
+
+        Context appCtx = target.getContext().getApplicationContext();
+
+        // repeat binds are served straight from memory
+        Bitmap inMemory = PhotoCacheManager.peek(appCtx, placeId, maxPx);
+        if (inMemory != null) {
+            show(target, inMemory);
+            return;
+        }
+
+        showPlaceholder(target);
+
+        // decode for the view's real size when it is laid out (recycled rows always are)
+        int reqWidth = target.getWidth() > 0 ? target.getWidth() : maxPx;
+        int reqHeight = target.getHeight() > 0 ? target.getHeight() : maxPx;
+
+        Request req = new Request(placeId, maxPx);
+        target.setTag(R.id.photo_request, req);
+
+        DISK.execute(() -> {
+            if (req.cancelled) return;
+            Bitmap fromDisk = PhotoCacheManager.load(appCtx, placeId, maxPx, reqWidth, reqHeight);
+
+            MAIN.post(() -> {
+                if (!isCurrent(target, req)) {
+                    if (fromDisk != null) PhotoCacheManager.release(fromDisk);
+                    return;
+                }
+
+                if (fromDisk != null) {
+                    deliver(target, req, fromDisk);
+                } else if (client != null) {
+                    InFlight<Bitmap> job = attachPhoto(client, placeId, maxPx, meta, appCtx);
+                    req.job = job;
+                    job.result.getTask().addOnSuccessListener(bmp -> {
+                        if (!isCurrent(target, req)) return;
+                        PhotoCacheManager.retain(bmp); // shared result: every view holds its own reference
+                        deliver(target, req, bmp);
+                    });
+                }
+            });
+        });
+    }
+
+    // Cancels whatever request is bound to this view and lets go of the bitmap it shows
+    // (call when the holder is recycled or the screen goes away).
+    public static void cancel(ImageView target) {
+        cancelRequest(target);
+        showPlaceholder(target);
+    }
+
+    private static void cancelRequest(ImageView target) {
+        Object tag = target.getTag(R.id.photo_request);
+        if (tag instanceof Request) {
+            Request req = (Request) tag;
+            req.cancelled = true;
+            if (req.job != null) {
+                release(req.job);
+                req.job = null;
+            }
+        }
+        target.setTag(R.id.photo_request, null);
+    }
+
+    // Handle for a scroll-ahead warm-up; cancel() when the item leaves the prefetch window.
+    public static final class Prefetch {
+        volatile boolean cancelled = false;
+        boolean deferred = false; // skipped because enough prefetch fetches were running
+        @Nullable InFlight<Bitmap> job;
+
+        public boolean isDeferred() {
+            return deferred;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            if (job != null) {
+                release(job);
+                job = null;
+            }
+        }
+    }
+
+    // Warms the memory cache for a photo that is about to scroll into view: disk decode on the
+    // low-priority thread, then (if allowNetwork) a shared fetch. At most MAX_PREFETCH_FETCHES
+    // prefetch fetches run at once; a row that binds meanwhile just joins the same job.
+    public static Prefetch prefetch(Context ctx, @Nullable PlacesClient client, String placeId,
+                                    @Nullable PhotoMetadata meta, int maxPx,
+                                    int reqWidth, int reqHeight, boolean allowNetwork) {
+        Prefetch p = new Prefetch();
+        Context appCtx = ctx.getApplicationContext();
+        if (placeId == null) return p;
+
+        Bitmap inMemory = PhotoCacheManager.peek(appCtx, placeId, maxPx);
+        if (inMemory != null) {
+            PhotoCacheManager.release(inMemory);
+            return p;
+        }
+
+        PREFETCH.execute(() -> {
+            if (p.cancelled) return;
+            Bitmap warmed = PhotoCacheManager.load(appCtx, placeId, maxPx, reqWidth, reqHeight);
+            if (warmed != null) {
+                PhotoCacheManager.release(warmed); // only warming the cache, nobody shows it
+                return;
+            }
+
+            MAIN.post(() -> {
+                if (p.cancelled || !allowNetwork || client == null) return;
+                if (prefetchFetches >= MAX_PREFETCH_FETCHES) {
+                    p.deferred = true; // the next scroll event retries
+                    return;
+                }
+
+                prefetchFetches++;
+                p.job = attachPhoto(client, placeId, maxPx, meta, appCtx);
+                p.job.result.getTask().addOnCompleteListener(t -> {
+                    prefetchFetches--;
+                    p.job = null;
+                });
+            });
+        });
+        return p;
+    }
+
+    // Joins the in-flight fetch for (placeId, maxPx), starting it if nobody else has.
+    private static InFlight<Bitmap> attachPhoto(PlacesClient client, String placeId, int maxPx,
+                                                @Nullable PhotoMetadata meta, Context appCtx) {
+        String key = placeId + "_" + maxPx;
+        InFlight<Bitmap> job = PHOTOS.get(key);
+        if (job != null) {
+            job.waiters++;
+            return job;
+        }
+
+        InFlight<Bitmap> created = new InFlight<>(key, PHOTOS);
+        created.waiters = 1;
+        PHOTOS.put(key, created);
+
+        Task<PhotoMetadata> metaTask;
+        if (meta != null) {
+            metaTask = Tasks.forResult(meta);
+        } else {
+            created.upstream = attachMetadata(client, placeId);
+            metaTask = created.upstream.result.getTask();
+        }
+
+        metaTask
+                .onSuccessTask(m -> fetchPhoto(client, m, maxPx, created))
+                .continueWithTask(t -> {
+                    if (t.isSuccessful() || meta == null
+                            || created.cancel.getToken().isCancellationRequested()) {
+                        return t;
+                    }
+                    // the reference we were handed is stale (expired or rejected):
+                    // forget it and look the photo up again
+                    PhotoRefs.forget(placeId);
+                    created.upstream = attachMetadata(client, placeId);
+                    return created.upstream.result.getTask()
+                            .onSuccessTask(m -> fetchPhoto(client, m, maxPx, created));
+                })
+                .addOnCompleteListener(t -> {
+                    if (PHOTOS.get(key) == created) PHOTOS.remove(key);
+
+                    Bitmap bmp = t.isSuccessful() ? t.getResult().getBitmap() : null;
+                    if (bmp == null) {
+                        created.result.trySetException(t.getException() != null
+                                ? t.getException() : new IllegalStateException("No photo for " + placeId));
+                        return;
+                    }
+
+                    // cache even if every view moved on, the next bind will want it
+                    PhotoCacheManager.remember(appCtx, placeId, maxPx, bmp);
+                    DISK.execute(() -> PhotoCacheManager.save(appCtx, placeId, maxPx, bmp));
+                    created.result.trySetResult(bmp);
+                });
+
+        return created;
+    }
+
+    private static Task<FetchPhotoResponse> fetchPhoto(PlacesClient client, PhotoMetadata meta,
+                                                       int maxPx, InFlight<Bitmap> job) {
+        return client.fetchPhoto(FetchPhotoRequest.builder(meta)
+                .setMaxWidth(maxPx)
+                .setMaxHeight(maxPx)
+                .setCancellationToken(job.cancel.getToken())
+                .build());
+    }
+
+    // Joins the in-flight PHOTO_METADATAS lookup for placeId (shared by every size).
+    private static InFlight<PhotoMetadata> attachMetadata(PlacesClient client, String placeId) {
+        InFlight<PhotoMetadata> job = METADATA.get(placeId);
+        if (job != null) {
+            job.waiters++;
+            return job;
+        }
+
+        InFlight<PhotoMetadata> created = new InFlight<>(placeId, METADATA);
+        created.waiters = 1;
+        METADATA.put(placeId, created);
+
+        FetchPlaceRequest placeReq = FetchPlaceRequest.builder(
+                placeId,
+                Arrays.asList(Place.Field.PHOTO_METADATAS)
+        ).setCancellationToken(created.cancel.getToken()).build();
+
+        client.fetchPlace(placeReq).addOnCompleteListener(t -> {
+            if (METADATA.get(placeId) == created) METADATA.remove(placeId);
+
+            List<PhotoMetadata> metas = t.isSuccessful() ? t.getResult().getPlace().getPhotoMetadatas() : null;
+            if (metas == null || metas.isEmpty()) {
+                created.result.trySetException(t.getException() != null
+                        ? t.getException() : new IllegalStateException("No photo for " + placeId));
+            } else {
+                PhotoRefs.remember(placeId, metas.get(0));
+                created.result.trySetResult(metas.get(0));
+            }
+        });
+
+        return created;
+    }
+
+    // Drops one waiter; the last one out cancels the network call.
+    private static <T> void release(InFlight<T> job) {
+        if (--job.waiters > 0) return;
+
+        if (job.owner.get(job.key) == job) job.owner.remove(job.key);
+        job.cancel.cancel();
+        if (job.upstream != null) release(job.upstream);
+    }
+
+    private static void deliver(ImageView target, Request req, Bitmap bmp) {
+        show(target, bmp);
+        target.setTag(R.id.photo_request, null);
+        req.job = null;
+    }
+
+    // Shows a bitmap the caller holds a display reference for, dropping the previous one.
+    private static void show(ImageView target, Bitmap bmp) {
+        Object shown = target.getTag(R.id.photo_bitmap);
+        target.setImageBitmap(bmp);
+        target.setTag(R.id.photo_bitmap, bmp);
+        if (shown instanceof Bitmap) PhotoCacheManager.release((Bitmap) shown);
+    }
+
+    private static void showPlaceholder(ImageView target) {
+        Object shown = target.getTag(R.id.photo_bitmap);
+        target.setImageResource(R.drawable.ic_landmark_placeholder);
+        target.setTag(R.id.photo_bitmap, null);
+        if (shown instanceof Bitmap) PhotoCacheManager.release((Bitmap) shown);
+    }
+
+    private static boolean isCurrent(ImageView target, Request req) {
+        return !req.cancelled && target.getTag(R.id.photo_request) == req;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.culturalcompass.ui.favorites;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.libraries.places.api.model.PhotoMetadata;
+import com.google.android.libraries.places.api.net.PlacesClient;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Scroll-ahead photo warm-up for a RecyclerView of places.
+// On every scroll it prefetches the photos of the next rows in the scroll direction; the
+// faster the list moves, the further ahead it looks. Items that fall out of that window are
+// cancelled. Network prefetch is skipped on metered connections (disk warm-up still runs).
+public class PhotoPrefetcher extends RecyclerView.OnScrollListener {
+
+    private static final int BASE_AHEAD = 4;     // rows ahead when scrolling slowly
+    private static final int MAX_AHEAD = 20;     // rows ahead when flinging
+    private static final int FRAMES_AHEAD = 30;  // look ~half a second ahead at 60 fps
+
+    // What to prefetch for an adapter position, or null if it has no photo.
+    public interface Source {
+        @Nullable
+        Item itemAt(int position);
+    }
+
+    public static class Item {
+        final String placeId;
+        @Nullable final PhotoMetadata meta;
+
+        public Item(String placeId, @Nullable PhotoMetadata meta) {
+            this.placeId = placeId;
+            this.meta = meta;
+        }
+    }
+
+    private final Context appCtx;
+    @Nullable private final PlacesClient client;
+    private final int maxPx;
+    private final int imageViewId;
+    private final Source source;
+
+    // current window, placeId -> warm-up
+    private final Map<String, PhotoLoader.Prefetch> inWindow = new HashMap<>();
+
+    // imageViewId is the row's ImageView, used to decode at the size it is shown.
+    public PhotoPrefetcher(Context ctx, @Nullable PlacesClient client, int maxPx,
+                           int imageViewId, Source source) {
+        this.appCtx = ctx.getApplicationContext();
+        this.client = client;
+        this.maxPx = maxPx;
+        this.imageViewId = imageViewId;
+        this.source = source;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+        if (dy == 0) return;
+        if (!(rv.getLayoutManager() instanceof LinearLayoutManager)) return;
+        LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+
+        RecyclerView.Adapter<?> adapter = rv.getAdapter();
+        View first = rv.getChildAt(0);
+        if (adapter == null || first == null) return;
+
+        int span = lm instanceof GridLayoutManager ? ((GridLayoutManager) lm).getSpanCount() : 1;
+
+        // rows per frame -> how far ahead to look
+        int rowHeight = Math.max(1, first.getHeight());
+        int ahead = BASE_AHEAD + Math.abs(dy) * FRAMES_AHEAD / rowHeight;
+        int count = Math.min(ahead, MAX_AHEAD) * span;
+
+        int from, to;
+        if (dy > 0) {
+            from = lm.findLastVisibleItemPosition() + 1;
+            to = Math.min(adapter.getItemCount() - 1, from + count - 1);
+        } else {
+            to = lm.findFirstVisibleItemPosition() - 1;
+            from = Math.max(0, to - count + 1);
+        }
+        if (from < 0 || to < from) return; // at the end of the list
+
+        View img = first.findViewById(imageViewId);
+        int reqWidth = img != null && img.getWidth() > 0 ? img.getWidth() : maxPx;
+        int reqHeight = img != null && img.getHeight() > 0 ? img.getHeight() : maxPx;
+
+        boolean allowNetwork = !isMetered();
+        Map<String, PhotoLoader.Prefetch> next = new HashMap<>();
+
+        for (int pos = from; pos <= to; pos++) {
+            Item item = source.itemAt(pos);
+            if (item == null || item.placeId == null) continue;
+
+            PhotoLoader.Prefetch p = inWindow.remove(item.placeId);
+            if (p == null || p.isDeferred()) {
+                p = PhotoLoader.prefetch(appCtx, client, item.placeId, item.meta, maxPx,
+                        reqWidth, reqHeight, allowNetwork);
+            }
+            next.put(item.placeId, p);
+        }
+
+        // rows that just scrolled into view keep their warm-up: the bound row is about to
+        // join the same fetch, cancelling here would throw it away
+        for (int pos = lm.findFirstVisibleItemPosition(); pos >= 0
+                && pos <= lm.findLastVisibleItemPosition(); pos++) {
+            Item item = source.itemAt(pos);
+            if (item == null || item.placeId == null) continue;
+
+            PhotoLoader.Prefetch p = inWindow.remove(item.placeId);
+            if (p != null) next.put(item.placeId, p);
+        }
+
+        // whatever is left scrolled out of the window
+        cancelAll();
+        inWindow.putAll(next);
+    }
+
+    // Call when the list goes away.
+    public void cancelAll() {
+        Iterator<PhotoLoader.Prefetch> it = inWindow.values().iterator();
+        while (it.hasNext()) {
+            it.next().cancel();
+            it.remove();
+        }
+    }
+
+    private boolean isMetered() {
+        ConnectivityManager cm =
+                (ConnectivityManager) appCtx.getSystemService(Context.CONNECTIVITY_SERVICE);
+        return cm == null || cm.isActiveNetworkMetered();
+    }
+}
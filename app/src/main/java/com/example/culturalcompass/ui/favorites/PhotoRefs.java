@@ -0,0 +1,97 @@
+package com.example.culturalcompass.ui.favorites;
+
+import android.text.Html;
+import android.text.method.LinkMovementMethod;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.Nullable;
+
+import com.example.culturalcompass.model.FirestoreAttraction;
+import com.google.android.libraries.places.api.model.PhotoMetadata;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Photo references, so favorites and the details screen can go straight to fetchPhoto instead
+// of fetchPlace(PHOTO_METADATAS) + fetchPhoto.
+// Metadata seen this session is kept in memory by placeId. A favorite also saves the photo
+// reference string, size and attributions, and the metadata is rebuilt from them after a
+// restart. References can expire: PhotoLoader then falls back to fetchPlace, forgets the
+// entry and remembers the fresh one for the rest of the session.
+public final class PhotoRefs {
+
+    private static final int MAX_ENTRIES = 500;
+
+    private static final Map<String, PhotoMetadata> REFS =
+            new LinkedHashMap<String, PhotoMetadata>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PhotoMetadata> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+
+    private PhotoRefs() {
+    }
+
+    public static synchronized void remember(String placeId, @Nullable PhotoMetadata meta) {
+        if (placeId == null || meta == null) return;
+        REFS.put(placeId, meta);
+    }
+
+    @Nullable
+    public static synchronized PhotoMetadata lookup(String placeId) {
+        return placeId != null ? REFS.get(placeId) : null;
+    }
+
+    // For a saved favorite: this session's metadata, else the one rebuilt from the favorite.
+    @Nullable
+    public static PhotoMetadata lookup(FirestoreAttraction fa) {
+        PhotoMetadata meta = lookup(fa.getId());
+        if (meta != null) return meta;
+
+        String ref = fa.getPhotoRef();
+        if (ref == null || ref.isEmpty()) return null;
+
+        PhotoMetadata.Builder builder = PhotoMetadata.builder(ref);
+        if (fa.getPhotoWidth() != null) builder.setWidth(fa.getPhotoWidth());
+        if (fa.getPhotoHeight() != null) builder.setHeight(fa.getPhotoHeight());
+        if (fa.getPhotoAttributions() != null) builder.setAttributions(fa.getPhotoAttributions());
+        return builder.build();
+    }
+
+    // Copies what is needed to rebuild meta onto a favorite before it is saved.
+    public static void save(FirestoreAttraction fa, @Nullable PhotoMetadata meta) {
+        if (meta == null) return;
+
+        fa.setPhotoRef(meta.getPhotoReference());
+        fa.setPhotoWidth(meta.getWidth() > 0 ? meta.getWidth() : null);
+        fa.setPhotoHeight(meta.getHeight() > 0 ? meta.getHeight() : null);
+        fa.setPhotoAttributions(attributions(meta));
+    }
+
+    // The reference no longer works (expired or rejected).
+    static synchronized void forget(String placeId) {
+        REFS.remove(placeId);
+    }
+
+    // Attribution text that must be shown with the photo, or null.
+    @Nullable
+    public static String attributions(@Nullable PhotoMetadata meta) {
+        if (meta == null) return null;
+        String text = meta.getAttributions();
+        return text == null || text.isEmpty() ? null : text;
+    }
+
+    // Shows the attribution (HTML with the author link) under a photo, or hides the view.
+    public static void showAttributions(TextView view, @Nullable String attributions, boolean links) {
+        if (attributions == null || attributions.isEmpty()) {
+            view.setVisibility(View.GONE);
+            return;
+        }
+        view.setText(Html.fromHtml(attributions, Html.FROM_HTML_MODE_COMPACT));
+        // not in list rows: a link movement method would take the row's clicks
+        if (links) view.setMovementMethod(LinkMovementMethod.getInstance());
+        view.setVisibility(View.VISIBLE);
+    }
+}
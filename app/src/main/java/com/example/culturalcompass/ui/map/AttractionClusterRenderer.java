@@ -2,8 +2,13 @@ package com.example.culturalcompass.ui.map;
 
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import com.example.culturalcompass.R;
 import com.example.culturalcompass.model.AttractionClusterItem;
@@ -15,10 +20,28 @@ import com.google.maps.android.clustering.Cluster;
 import com.google.maps.android.clustering.ClusterManager;
 import com.google.maps.android.clustering.view.DefaultClusterRenderer;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class AttractionClusterRenderer
         extends DefaultClusterRenderer<AttractionClusterItem> {
 
+    private static final int MARKER_SIZE_DP = 40;  // 120 px on xxhdpi, as before
+    private static final int CLUSTER_SIZE_DP = 44;
+
+    // Small clusters show their exact size (one icon per size, 2..MAX_EXACT_SIZE). Larger ones
+    // are grouped into buckets like DefaultClusterRenderer does, one shared icon each ("10+", ...).
+    private static final int MAX_EXACT_SIZE = 9;
+    private static final int EXACT_COLOR = 0xFF2A6F97;
+    private static final int[] CLUSTER_BUCKETS = {10, 20, 50, 100};
+    private static final int[] BUCKET_COLORS = {0xFF1F5A7A, 0xFF17465F, 0xFF0F3345, 0xFF08202C};
+
+    // Shared by every renderer instance: one descriptor per (icon or cluster label, density).
+    private static final Map<String, BitmapDescriptor> DESCRIPTORS = new HashMap<>();
+
     private final Context context;
+    private final float density;
+    private final int densityDpi;
 
     public AttractionClusterRenderer(
             Context context,
@@ -27,6 +50,8 @@ public class AttractionClusterRenderer
     ) {
         super(context, map, clusterManager);
         this.context = context;
+        this.density = context.getResources().getDisplayMetrics().density;
+        this.densityDpi = context.getResources().getDisplayMetrics().densityDpi;
     }
 
     @Override
@@ -46,6 +71,33 @@ public class AttractionClusterRenderer
         return cluster.getSize() > 1;
     }
 
+    @NonNull
+    @Override
+    protected BitmapDescriptor getDescriptorForCluster(@NonNull Cluster<AttractionClusterItem> cluster) {
+        int size = cluster.getSize();
+        String label;
+        int color;
+        if (size <= MAX_EXACT_SIZE) {
+            label = String.valueOf(size);
+            color = EXACT_COLOR;
+        } else {
+            int bucketIndex = bucketIndexFor(size);
+            label = CLUSTER_BUCKETS[bucketIndex] + "+";
+            color = BUCKET_COLORS[bucketIndex];
+        }
+        String key = "cluster" + label + "@" + densityDpi;
+
+        synchronized (DESCRIPTORS) {
+            BitmapDescriptor cached = DESCRIPTORS.get(key);
+            if (cached != null) return cached;
+
+            BitmapDescriptor descriptor =
+                    BitmapDescriptorFactory.fromBitmap(drawClusterIcon(label, color));
+            DESCRIPTORS.put(key, descriptor);
+            return descriptor;
+        }
+    }
+
     private BitmapDescriptor getMarkerIcon(String primaryTypeKey) {
         int iconRes;
 
@@ -59,13 +111,58 @@ public class AttractionClusterRenderer
             iconRes = R.drawable.ic_tourist_attraction; // fallback
         }
 
-        Drawable drawable = ContextCompat.getDrawable(context, iconRes);
-        if (drawable == null) {
-            return null;
+        String key = "marker" + iconRes + "@" + densityDpi;
+
+        synchronized (DESCRIPTORS) {
+            BitmapDescriptor cached = DESCRIPTORS.get(key);
+            if (cached != null) return cached;
+
+            Drawable drawable = ContextCompat.getDrawable(context, iconRes);
+            if (drawable == null) {
+                return null;
+            }
+
+            int sizePx = Math.round(MARKER_SIZE_DP * density);
+            Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap, sizePx, sizePx, false);
+
+            BitmapDescriptor descriptor = BitmapDescriptorFactory.fromBitmap(scaled);
+            DESCRIPTORS.put(key, descriptor);
+            return descriptor;
         }
+    }
+
+    // Index of the largest bucket that is <= size (size > MAX_EXACT_SIZE).
+    private static int bucketIndexFor(int size) {
+        for (int i = CLUSTER_BUCKETS.length - 1; i > 0; i--) {
+            if (size >= CLUSTER_BUCKETS[i]) return i;
+        }
+        return 0;
+    }
+
+    // Filled circle with a white ring and the label in the middle.
+    private Bitmap drawClusterIcon(String label, int color) {
+        int sizePx = Math.round(CLUSTER_SIZE_DP * density);
+        float radius = sizePx / 2f;
+
+        Bitmap bitmap = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(0xFFFFFFFF);
+        canvas.drawCircle(radius, radius, radius, paint);
+
+        paint.setColor(color);
+        canvas.drawCircle(radius, radius, radius - 3 * density, paint);
+
+        paint.setColor(0xFFFFFFFF);
+        paint.setTextAlign(Paint.Align.CENTER);
+        paint.setTypeface(Typeface.DEFAULT_BOLD);
+        paint.setTextSize(14 * density);
+
+        float baseline = radius - (paint.descent() + paint.ascent()) / 2f;
+        canvas.drawText(label, radius, baseline, paint);
 
-        Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
-        Bitmap scaled = Bitmap.createScaledBitmap(bitmap, 120, 120, false);
-        return BitmapDescriptorFactory.fromBitmap(scaled);
+        return bitmap;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,158 @@
+package com.example.culturalcompass.ui.map;
+
+import com.example.culturalcompass.model.Attraction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Ranks attractions for the three sort modes of the nearby list.
+// Every score is computed once per attraction into a primitive array and each order is a
+// stable sort of an index permutation, so comparisons never unbox or recompute a sqrt.
+// All three orders are materialized up front; switching the sort spinner is just a lookup.
+public final class AttractionRanker {
+
+    private AttractionRanker() {
+    }
+
+    public static class Ranking {
+        private final List<Attraction> byDistance;
+        private final List<Attraction> byRating;
+        private final List<Attraction> byBest;
+        // weighted rating of each byBest entry; it does not depend on distance
+        private final double[] bestRatings;
+
+        Ranking(List<Attraction> byDistance, List<Attraction> byRating,
+                List<Attraction> byBest, double[] bestRatings) {
+            this.byDistance = byDistance;
+            this.byRating = byRating;
+            this.byBest = byBest;
+            this.bestRatings = bestRatings;
+        }
+
+        public List<Attraction> byDistance() { return byDistance; }
+        public List<Attraction> byRating() { return byRating; }
+        public List<Attraction> byBest() { return byBest; }
+    }
+
+    public static Ranking rank(List<Attraction> items) {
+        int n = items.size();
+        double[] distance = new double[n];
+        double[] rating = new double[n];
+        double[] best = new double[n];
+
+        // single scoring pass
+        for (int i = 0; i < n; i++) {
+            Attraction a = items.get(i);
+            distance[i] = a.getDistanceMeters();
+            rating[i] = computeWeightedRating(a);
+            best[i] = combinedScore(rating[i], distance[i]);
+        }
+
+        int[] bestOrder = sortIndices(best, true);
+        double[] bestRatings = new double[n];
+        for (int i = 0; i < n; i++) bestRatings[i] = rating[bestOrder[i]];
+
+        return new Ranking(
+                permute(items, sortIndices(distance, false)),
+                permute(items, sortIndices(rating, true)),
+                permute(items, bestOrder),
+                bestRatings
+        );
+    }
+
+    // After distances changed in place: true if the distance and "best" orders are still valid,
+    // so the list only needs rebinding instead of a full re-rank. The rating order never
+    // depends on distance.
+    public static boolean isStillOrdered(Ranking ranking) {
+        List<Attraction> byDistance = ranking.byDistance;
+        for (int i = 1; i < byDistance.size(); i++) {
+            if (byDistance.get(i - 1).getDistanceMeters() > byDistance.get(i).getDistanceMeters()) {
+                return false;
+            }
+        }
+
+        // only the distance part of the "best" score moves; the ratings are from rank()
+        List<Attraction> byBest = ranking.byBest;
+        double previous = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < byBest.size(); i++) {
+            double score = combinedScore(ranking.bestRatings[i], byBest.get(i).getDistanceMeters());
+            if (score > previous) return false;
+            previous = score;
+        }
+        return true;
+    }
+
+    // Wilson score rating that favors places with more reviews.
+    private static double computeWeightedRating(Attraction a) {
+        Double r = a.getRating();
+        Integer v = a.getRatingCount();
+
+        if (r == null || v == null || v == 0) {
+            return -1.0;
+        }
+
+        double rating = r;
+        double n = v;
+        double z = 1.96;
+
+        double p = rating / 5.0;
+        double z2 = z * z;
+
+        double numerator = p + z2 / (2.0 * n)
+                - z * Math.sqrt((p * (1.0 - p) + z2 / (4.0 * n)) / n);
+        double denominator = 1.0 + z2 / n;
+
+        double lowerBound = numerator / denominator;
+        return lowerBound * 5.0;
+    }
+
+    // Combined score for "Best overall": high rating, penalized by distance.
+    private static double combinedScore(double weightedRating, double distanceMeters) {
+        if (weightedRating < 0) {
+            weightedRating = 0.0;
+        }
+
+        double distanceKm = distanceMeters / 1000.0;
+        double penalty = 0.15 * distanceKm;
+
+        return weightedRating - penalty;
+    }
+
+    private static List<Attraction> permute(List<Attraction> items, int[] order) {
+        List<Attraction> out = new ArrayList<>(order.length);
+        for (int idx : order) {
+            out.add(items.get(idx));
+        }
+        return out;
+    }
+
+    // Stable merge sort of 0..n-1 by keys (ties keep their original order, like Collections.sort).
+    static int[] sortIndices(double[] keys, boolean descending) {
+        int n = keys.length;
+        int[] idx = new int[n];
+        for (int i = 0; i < n; i++) idx[i] = i;
+
+        int[] tmp = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, n);
+                merge(keys, descending, idx, tmp, lo, mid, hi);
+            }
+        }
+        return idx;
+    }
+
+    private static void merge(double[] keys, boolean descending,
+                              int[] idx, int[] tmp, int lo, int mid, int hi) {
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            int cmp = Double.compare(keys[idx[j]], keys[idx[i]]);
+            boolean takeRight = descending ? cmp > 0 : cmp < 0;
+            tmp[k++] = takeRight ? idx[j++] : idx[i++];
+        }
+        while (i < mid) tmp[k++] = idx[i++];
+        while (j < hi) tmp[k++] = idx[j++];
+        System.arraycopy(tmp, lo, idx, lo, hi - lo);
+    }
+}
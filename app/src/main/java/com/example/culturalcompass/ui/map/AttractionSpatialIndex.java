@@ -0,0 +1,85 @@
+package com.example.culturalcompass.ui.map;
+
+import com.example.culturalcompass.model.FirestoreAttraction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// In-memory geohash cell index over cached attractions (offline mode).
+// Attractions are bucketed by their precision-5 cell (~4.9 km); a radius or box query only
+// looks at the few cells overlapping the query instead of scanning the whole cache.
+public class AttractionSpatialIndex {
+
+    private static final int PRECISION = 5;
+    private static final double METERS_PER_DEGREE_LAT = 111320.0;
+
+    // One result of a radius query, with the distance from the query centre.
+    public static class Hit {
+        public final FirestoreAttraction attraction;
+        public final double distanceMeters;
+
+        Hit(FirestoreAttraction attraction, double distanceMeters) {
+            this.attraction = attraction;
+            this.distanceMeters = distanceMeters;
+        }
+    }
+
+    private final Map<String, List<FirestoreAttraction>> cells = new HashMap<>();
+    private int size = 0;
+
+    public void add(FirestoreAttraction a) {
+        String cell = Geohash.encode(a.getLat(), a.getLng(), PRECISION);
+        List<FirestoreAttraction> bucket = cells.get(cell);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            cells.put(cell, bucket);
+        }
+        bucket.add(a);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Attractions inside the lat/lng bounding box.
+    public List<FirestoreAttraction> withinBox(double minLat, double minLon,
+                                               double maxLat, double maxLon) {
+        List<FirestoreAttraction> out = new ArrayList<>();
+
+        for (String cell : Geohash.cellsCovering(minLat, minLon, maxLat, maxLon, PRECISION)) {
+            List<FirestoreAttraction> bucket = cells.get(cell);
+            if (bucket == null) continue;
+
+            for (FirestoreAttraction a : bucket) {
+                if (a.getLat() >= minLat && a.getLat() <= maxLat
+                        && a.getLng() >= minLon && a.getLng() <= maxLon) {
+                    out.add(a);
+                }
+            }
+        }
+        return out;
+    }
+
+    // Attractions within radiusMeters of (lat, lon), nearest first.
+    public List<Hit> withinRadius(double lat, double lon, double radiusMeters) {
+        double dLat = radiusMeters / METERS_PER_DEGREE_LAT;
+        double dLon = radiusMeters
+                / (METERS_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(lat)), 0.01));
+
+        List<Hit> hits = new ArrayList<>();
+
+        for (FirestoreAttraction a : withinBox(lat - dLat, lon - dLon, lat + dLat, lon + dLon)) {
+            double d = DistanceEngine.distanceMeters(lat, lon, a.getLat(), a.getLng());
+            if (d <= radiusMeters) {
+                hits.add(new Hit(a, d));
+            }
+        }
+
+        Collections.sort(hits, (x, y) -> Double.compare(x.distanceMeters, y.distanceMeters));
+        return hits;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.culturalcompass.ui.map;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.culturalcompass.model.FirestoreAttraction;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Remembers what we last wrote to users/{email}/attractions so the nearby caching batch only
+// contains new or changed places. Each entry is a content hash plus write time per placeId;
+// a place is rewritten when its content changed or the entry is older than FRESH_TTL_MS.
+public class AttractionWriteDeduper {
+
+    private static final String PREFS = "attraction_writes";
+    private static final long FRESH_TTL_MS = 24 * 60 * 60 * 1000L;
+
+    private static AttractionWriteDeduper instance;
+
+    private final SharedPreferences prefs;
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+
+    public static synchronized AttractionWriteDeduper get(Context ctx) {
+        if (instance == null) {
+            instance = new AttractionWriteDeduper(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AttractionWriteDeduper(Context appCtx) {
+        prefs = appCtx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        // get() runs in onCreate: the first read waits for the file to load, and pruning
+        // walks every entry, so both happen off the main thread
+        io.execute(this::pruneExpired);
+    }
+
+    // True if this place is new, changed, or its last write is no longer fresh.
+    public boolean needsWrite(String userEmail, FirestoreAttraction a) {
+        String stored = prefs.getString(key(userEmail, a.getId()), null);
+        if (stored == null) return true;
+
+        int sep = stored.indexOf(':');
+        if (sep < 0) return true;
+
+        try {
+            long hash = Long.parseLong(stored.substring(0, sep));
+            long writtenAt = Long.parseLong(stored.substring(sep + 1));
+            return hash != contentHash(a)
+                    || System.currentTimeMillis() - writtenAt >= FRESH_TTL_MS;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    // Records a committed batch.
+    public void markWritten(String userEmail, List<FirestoreAttraction> written) {
+        long now = System.currentTimeMillis();
+        SharedPreferences.Editor editor = prefs.edit();
+        for (FirestoreAttraction a : written) {
+            editor.putString(key(userEmail, a.getId()), contentHash(a) + ":" + now);
+        }
+        editor.apply();
+    }
+
+    private static String key(String userEmail, String placeId) {
+        return userEmail + "/" + placeId;
+    }
+
+    // 64-bit FNV-1a over the fields that matter for the offline cache. distanceMeters is left
+    // out on purpose: it only reflects the search centre and is recomputed on display.
+    static long contentHash(FirestoreAttraction a) {
+        String content = a.getId() + '\u0000'
+                + a.getName() + '\u0000'
+                + a.getLat() + '\u0000'
+                + a.getLng() + '\u0000'
+                + a.getTypeLabel() + '\u0000'
+                + a.getPrimaryTypeKey() + '\u0000'
+                + a.getRating() + '\u0000'
+                + a.getRatingCount();
+
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < content.length(); i++) {
+            hash ^= content.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Drops entries whose write is no longer fresh so the prefs file does not grow forever.
+    private void pruneExpired() {
+        long now = System.currentTimeMillis();
+        SharedPreferences.Editor editor = prefs.edit();
+        boolean changed = false;
+
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            Object value = entry.getValue();
+            long writtenAt = 0;
+            if (value instanceof String) {
+                String s = (String) value;
+                int sep = s.indexOf(':');
+                try {
+                    writtenAt = sep < 0 ? 0 : Long.parseLong(s.substring(sep + 1));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+            if (now - writtenAt >= FRESH_TTL_MS) {
+                editor.remove(entry.getKey());
+                changed = true;
+            }
+        }
+        if (changed) editor.apply();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.culturalcompass.ui.map;
+
+import com.example.culturalcompass.model.Attraction;
+
+import java.util.List;
+
+// Cheap distance maths for every distance shown in the lists: the first values after a fetch
+// and the refresh on every location fix use it alike, so a fix never "moves" a place.
+// Uses the equirectangular approximation (error well under 0.1% at city scale) and falls back
+// to haversine for long distances or high latitudes where the approximation degrades.
+public final class DistanceEngine {
+
+    private static final double EARTH_RADIUS_METERS = 6371008.8;
+    private static final double APPROX_MAX_METERS = 20000;
+    private static final double APPROX_MAX_LATITUDE = 70;
+
+    // Distances are shown as "%.0f m", so smaller changes are not worth a rebind.
+    private static final double MIN_CHANGE_METERS = 1.0;
+
+    private DistanceEngine() {
+    }
+
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dPhi = phi2 - phi1;
+        double dLambda = Math.toRadians(lon2 - lon1);
+
+        if (Math.abs(lat1) < APPROX_MAX_LATITUDE && Math.abs(lat2) < APPROX_MAX_LATITUDE) {
+            double x = dLambda * Math.cos((phi1 + phi2) / 2);
+            double approx = EARTH_RADIUS_METERS * Math.sqrt(x * x + dPhi * dPhi);
+            if (approx < APPROX_MAX_METERS) return approx;
+        }
+        return haversine(phi1, phi2, dPhi, dLambda);
+    }
+
+    private static double haversine(double phi1, double phi2, double dPhi, double dLambda) {
+        double sinPhi = Math.sin(dPhi / 2);
+        double sinLambda = Math.sin(dLambda / 2);
+        double h = sinPhi * sinPhi + Math.cos(phi1) * Math.cos(phi2) * sinLambda * sinLambda;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    // Recomputes distances from (lat, lon); returns true if any shown value changed.
+    public static boolean updateDistances(List<Attraction> items, double lat, double lon) {
+        boolean changed = false;
+        for (Attraction a : items) {
+            double d = distanceMeters(lat, lon, a.getLat(), a.getLng());
+            if (Math.abs(d - a.getDistanceMeters()) >= MIN_CHANGE_METERS) {
+                a.setDistanceMeters(d);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.culturalcompass.ui.map;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Minimal geohash helpers used to bucket coordinates into fixed map cells.
+// Precision 5 is ~4.9 x 4.9 km, precision 6 is ~1.2 x 0.6 km, precision 7 is ~150 x 150 m.
+public final class Geohash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    // Encodes a coordinate into a geohash string with the given number of characters.
+    public static String encode(double lat, double lon, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true; // geohash interleaves bits starting with longitude
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (lon >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    // Height of a cell in degrees of latitude at the given precision.
+    public static double cellHeight(int precision) {
+        int latBits = (precision * 5) / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    // Width of a cell in degrees of longitude at the given precision.
+    public static double cellWidth(int precision) {
+        int lonBits = (precision * 5 + 1) / 2;
+        return 360.0 / (1L << lonBits);
+    }
+
+    // All cells of the given precision that intersect the bounding box (no antimeridian wrap).
+    public static List<String> cellsCovering(double minLat, double minLon,
+                                             double maxLat, double maxLon,
+                                             int precision) {
+        double h = cellHeight(precision);
+        double w = cellWidth(precision);
+
+        minLat = Math.max(minLat, -90);
+        maxLat = Math.min(maxLat, 90 - 1e-9);
+        minLon = Math.max(minLon, -180);
+        maxLon = Math.min(maxLon, 180 - 1e-9);
+
+        long rowFrom = (long) Math.floor((minLat + 90) / h);
+        long rowTo = (long) Math.floor((maxLat + 90) / h);
+        long colFrom = (long) Math.floor((minLon + 180) / w);
+        long colTo = (long) Math.floor((maxLon + 180) / w);
+
+        List<String> cells = new ArrayList<>();
+        for (long row = rowFrom; row <= rowTo; row++) {
+            double lat = -90 + (row + 0.5) * h; // encode the cell centre
+            for (long col = colFrom; col <= colTo; col++) {
+                double lon = -180 + (col + 0.5) * w;
+                cells.add(encode(lat, lon, precision));
+            }
+        }
+        return cells;
+    }
+}
@@ -11,6 +11,8 @@ import android.content.pm.PackageManager;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -33,12 +35,19 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.culturalcompass.GeminiClient;
 import com.example.culturalcompass.MainActivity;
 import com.example.culturalcompass.R;
 import com.example.culturalcompass.model.Attraction;
 import com.example.culturalcompass.model.AttractionClusterItem;
 import com.example.culturalcompass.model.FirestoreAttraction;
+import com.example.culturalcompass.ui.description.DescriptionCache;
 import com.example.culturalcompass.ui.description.DescriptionFragment;
+import com.example.culturalcompass.ui.description.DescriptionStream;
+import com.example.culturalcompass.ui.favorites.FavoritesStore;
+import com.example.culturalcompass.ui.favorites.PhotoCacheManager;
+import com.example.culturalcompass.ui.favorites.PhotoPrefetcher;
+import com.example.culturalcompass.ui.favorites.PhotoRefs;
 import com.example.culturalcompass.ui.login.LoginFragment;
 import com.google.android.gms.common.api.Status;
 import com.google.android.gms.location.FusedLocationProviderClient;
@@ -51,6 +60,8 @@ import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.MapView;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.android.libraries.places.api.Places;
 import com.google.android.libraries.places.api.model.CircularBounds;
 import com.google.android.libraries.places.api.model.PhotoMetadata;
@@ -71,23 +82,18 @@ import com.google.firebase.firestore.WriteBatch;
 import com.google.maps.android.clustering.Cluster;
 import com.google.maps.android.clustering.ClusterManager;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 
 // Main map screen: shows Google Map, nearby places list, filters, sorting and clustering.
@@ -96,6 +102,25 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
 
     private static final float MIN_DISTANCE_CHANGE = 100f; // meters
 
+    // Background work that must not block the UI (e.g. indexing the offline cache)
+    private static final Executor BACKGROUND = Executors.newSingleThreadExecutor();
+
+    // Superset mode: fetch every supported type once per location and filter locally.
+    private static final boolean FETCH_SUPERSET = true;
+    private static final List<String> SUPERSET_TYPES =
+            Arrays.asList("tourist_attraction", "museum", "art_gallery");
+    // Below this many local matches a narrowed filter asks Places for that type only.
+    private static final int MIN_FILTERED_RESULTS = 5;
+
+    // Fan-out mode: split the search disk into smaller cells to get past the 20-result cap.
+    private static final boolean FAN_OUT_SEARCH = true;
+    private static final double SEARCH_RADIUS_METERS = 5000;
+    private static final int MAX_RESULTS = FAN_OUT_SEARCH
+            ? NearbyFanOut.CELL_COUNT * NearbyFanOut.MAX_RESULTS_PER_CELL
+            : NearbyFanOut.MAX_RESULTS_PER_CELL;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
     private MapView mapView;
     private GoogleMap mMap;
     private FusedLocationProviderClient fusedLocationClient;
@@ -109,6 +134,7 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
 
     private RecyclerView recyclerNearby;
     private NearbyAdapter nearbyAdapter;
+    private PhotoPrefetcher photoPrefetcher;
 
     private LocationCallback locationCallback;
     private LocationRequest locationRequest;
@@ -130,6 +156,9 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
 
     private SortMode currentSortMode = SortMode.DISTANCE;
 
+    // Distance / rating / best orders of the current filtered set
+    private AttractionRanker.Ranking ranking;
+
     private ActivityResultLauncher<String> requestPermissionLauncher;
     private ActivityResultLauncher<Intent> autocompleteLauncher;
 
@@ -141,9 +170,26 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
 
     private ClusterManager<AttractionClusterItem> clusterManager;
 
+    // Markers currently in the cluster manager, keyed by placeId (for diff-based updates)
+    private final Map<String, AttractionClusterItem> clusterItems = new HashMap<>();
+
     private FirebaseFirestore db;
     private String userEmail;
 
+    // Recently fetched nearby results per geohash cell (memory + disk)
+    private NearbyTileCache tileCache;
+
+    private final FavoritesStore.Listener favoritesListener = this::onFavoritesChanged;
+
+    // Skips Firestore writes for places cached recently with identical content
+    private AttractionWriteDeduper writeDeduper;
+
+    // Spatial index over the offline Firestore cache; rebuilt after new online results
+    private AttractionSpatialIndex offlineIndex;
+
+    // Debounces/de-duplicates nearby searches and cancels superseded ones
+    private NearbyQueryScheduler nearbyScheduler;
+
     public MapFragment() {
     }
 
@@ -170,6 +216,16 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
         Log.d("USER EMAIL", "[" + userEmail + "]");
 
         db = FirebaseFirestore.getInstance();
+        tileCache = NearbyTileCache.get(requireContext());
+        writeDeduper = AttractionWriteDeduper.get(requireContext());
+
+        // Live favorites set (no-op if MainActivity already started it for this user)
+        FavoritesStore.get().start(requireContext(), userEmail);
+        FavoritesStore.get().addListener(favoritesListener);
+        nearbyScheduler = new NearbyQueryScheduler(this::runNearbyQuery);
+
+        // descriptions are one tap away: get the Gemini connection ready
+        GeminiClient.get(requireContext()).preconnect();
 
         // Initialize Places client once, using key from resources.
         if (!Places.isInitialized()) {
@@ -233,6 +289,9 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
                                 16f
                         ));
                     }
+                } else {
+                    // Small move: keep the results, just refresh distances from the new fix
+                    refreshDistancesFrom(newLat, newLon);
                 }
             }
         };
@@ -300,6 +359,15 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
         nearbyAdapter.setOnAttractionClickListener(this::requestAIDescriptionAndOpenFragment);
         recyclerNearby.setAdapter(nearbyAdapter);
 
+        // warm the photos of the rows about to scroll into view
+        photoPrefetcher = new PhotoPrefetcher(requireContext(), placesClient,
+                PhotoCacheManager.SIZE_THUMB, R.id.imgPhoto, position -> {
+            if (position >= nearbyAdapter.getItemCount()) return null;
+            Attraction a = nearbyAdapter.getItem(position);
+            return new PhotoPrefetcher.Item(a.getPlaceId(), a.getPhotoMetadata());
+        });
+        recyclerNearby.addOnScrollListener(photoPrefetcher);
+
         spinnerFilter = view.findViewById(R.id.spinnerFilter);
         spinnerSort = view.findViewById(R.id.spinnerSort);
 
@@ -316,96 +384,23 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
 
     // ----------------- AI description + DescriptionFragment ------------------
 
-    // Builds a Gemini API request for a natural-language description, calls it, then opens DescriptionFragment.
+    // Opens DescriptionFragment right away; the description comes from the cache or streams in from Gemini.
     private void requestAIDescriptionAndOpenFragment(Attraction a) {
 
-        String prompt =
-                "Give me a short friendly explanation (3–5 sentences, no markdown) "
-                        + "about this place: " + a.getName() + ". "
-                        + "It is a " + a.getType() + ". "
-                        + "If the place is well-known or historically important, include useful background and key details. "
-                        + "If it's small or local, keep the description simple and experience-based. "
-                        + "Do NOT mention coordinates or country names.";
-
-        JSONObject body = new JSONObject();
-        try {
-            JSONArray contents = new JSONArray();
-            JSONObject userObj = new JSONObject();
-            userObj.put("role", "user");
-
-            JSONArray parts = new JSONArray();
-            JSONObject text = new JSONObject();
-            text.put("text", prompt);
-            parts.put(text);
-
-            userObj.put("parts", parts);
-            contents.put(userObj);
-            body.put("contents", contents);
-
-        } catch (Exception e) {
-            e.printStackTrace();
+        String cached = DescriptionCache.get(requireContext()).lookup(a.getPlaceId());
+        if (cached != null) {
+            openDescriptionFragment(a, cached, null);
+            return;
         }
 
-        RequestBody reqBody = RequestBody.create(
-                body.toString(),
-                MediaType.parse("application/json; charset=utf-8")
-        );
-
-        String url = "https://generativelanguage.googleapis.com/v1beta/models/"
-                + "gemini-2.0-flash:generateContent?key="
-                + getString(R.string.gemini_api_key);
-
-        Request request = new Request.Builder()
-                .url(url)
-                .post(reqBody)
-                .build();
-
-        OkHttpClient client = new OkHttpClient();
-
-        client.newCall(request).enqueue(new Callback() {
-
-            @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                if (!isAdded()) return;
-                requireActivity().runOnUiThread(() ->
-                        Toast.makeText(
-                                getContext(),
-                                "Failed to load description",
-                                Toast.LENGTH_SHORT
-                        ).show()
-                );
-            }
-
-            @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response)
-                    throws IOException {
-
-                String json = response.body().string();
-                String description = parseGeminiDescription(json);
-
-                if (!isAdded()) return;
-                requireActivity().runOnUiThread(() ->
-                        openDescriptionFragment(a, description)
-                );
-            }
-        });
-    }
-
-    // Extracts the first text part from Gemini JSON response.
-    private String parseGeminiDescription(String json) {
-        try {
-            JSONObject obj = new JSONObject(json);
-            JSONArray candidates = obj.getJSONArray("candidates");
-            JSONObject content = candidates.getJSONObject(0).getJSONObject("content");
-            JSONArray parts = content.getJSONArray("parts");
-            return parts.getJSONObject(0).getString("text").trim();
-        } catch (Exception e) {
-            return "No description available.";
-        }
+        // start generating now and open the screen right away, the text streams in there
+        String prompt = DescriptionCache.prompt(a.getName(), a.getType());
+        DescriptionStream.start(requireContext(), a.getPlaceId(), prompt);
+        openDescriptionFragment(a, "", prompt);
     }
 
     // Creates and opens the DescriptionFragment with attraction details and AI text.
-    private void openDescriptionFragment(Attraction a, String aiText) {
+    private void openDescriptionFragment(Attraction a, String aiText, String prompt) {
 
         DescriptionFragment fragment = DescriptionFragment.newInstance(
                 a.getPlaceId(),
@@ -415,7 +410,9 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
                 a.getDistanceMeters(),
                 a.getRating(),
                 a.getRatingCount(),
-                aiText
+                a.getPhotoMetadata(),
+                aiText,
+                prompt
         );
 
         requireActivity().getSupportFragmentManager()
@@ -526,6 +523,7 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
 
         // ClusterManager groups nearby markers into clusters on map.
         clusterManager = new ClusterManager<>(requireContext(), mMap);
+        clusterItems.clear();
         clusterManager.setRenderer(
                 new AttractionClusterRenderer(requireContext(), mMap, clusterManager)
         );
@@ -589,11 +587,16 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
                         break;
                 }
 
-                // If we already have a location for last fetch, hit Places again.
-                // Otherwise just re-apply local filters on current list.
-                if (lastFetchLat != 0 || lastFetchLon != 0) {
+                if (FETCH_SUPERSET) {
+                    // The superset already holds every type: narrow it locally and only
+                    // go back to Places if the chosen type is too thin here.
+                    applyFiltersAndSorting();
+                    topUpIfFilterTooSparse();
+                } else if (lastFetchLat != 0 || lastFetchLon != 0) {
+                    // If we already have a location for last fetch, hit Places again.
                     requestNearbyForCurrentFilter(lastFetchLat, lastFetchLon);
                 } else {
+                    // Otherwise just re-apply local filters on current list.
                     applyFiltersAndSorting();
                 }
             }
@@ -640,7 +643,8 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
                         currentSortMode = SortMode.BEST;
                         break;
                 }
-                applyFiltersAndSorting();
+                // All orders are already materialized: just swap the list
+                showRanking();
             }
 
             @Override
@@ -707,13 +711,15 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
 
     // ----------------- Load nearby & cache to Firestore -----------------
 
-    // Calls Places Search Nearby API, builds Attraction objects and caches them to Firestore.
+    // Calls Places Search Nearby API (single disk or fan-out), builds Attraction objects and caches them to Firestore.
     private void loadNearbyAttractions(
             double lat,
             double lon,
-            List<String> includedTypes
+            List<String> includedTypes,
+            boolean merge,
+            NearbyQueryScheduler.Query query
     ) {
-        if (!isAdded()) return;
+        if (!isAdded() || !nearbyScheduler.isCurrent(query)) return;
 
         List<Place.Field> placeFields = Arrays.asList(
                 Place.Field.ID,
@@ -727,37 +733,53 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
         );
 
         LatLng center = new LatLng(lat, lon);
-        CircularBounds circle = CircularBounds.newInstance(center, 5000);
+        Task<NearbyFanOut.Result> search;
+
+        if (FAN_OUT_SEARCH) {
+            // Concurrent sub-searches, merged by placeId off the UI thread
+            search = NearbyFanOut.search(
+                    placesClient, center, SEARCH_RADIUS_METERS,
+                    placeFields, includedTypes, query.token()
+            );
+        } else {
+            CircularBounds circle = CircularBounds.newInstance(center, SEARCH_RADIUS_METERS);
+
+            SearchNearbyRequest request =
+                    SearchNearbyRequest.builder(circle, placeFields)
+                            .setIncludedTypes(includedTypes)
+                            .setMaxResultCount(NearbyFanOut.MAX_RESULTS_PER_CELL)
+                            .setRankPreference(SearchNearbyRequest.RankPreference.DISTANCE)
+                            .setCancellationToken(query.token())
+                            .build();
+
+            search = placesClient.searchNearby(request)
+                    .onSuccessTask(response -> Tasks.forResult(
+                            new NearbyFanOut.Result(response.getPlaces(), true)));
+        }
 
-        SearchNearbyRequest request =
-                SearchNearbyRequest.builder(circle, placeFields)
-                        .setIncludedTypes(includedTypes)
-                        .setMaxResultCount(20)
-                        .setRankPreference(SearchNearbyRequest.RankPreference.DISTANCE)
-                        .build();
+        search
+                .addOnSuccessListener(result -> {
 
-        placesClient.searchNearby(request)
-                .addOnSuccessListener(response -> {
+                    // A newer search started meanwhile: drop this response entirely
+                    if (!nearbyScheduler.isCurrent(query)) return;
 
                     List<Attraction> attractions = new ArrayList<>();
 
-                    // Single batch write instead of per-item writes + reads
+                    // Single batch write instead of per-item writes + reads,
+                    // holding only places that are new or changed since our last write
                     WriteBatch batch = db.batch();
+                    List<FirestoreAttraction> toWrite = new ArrayList<>();
 
-                    List<Place> places = response.getPlaces();
-
-                    for (Place place : places) {
+                    for (Place place : result.places) {
 
                         LatLng placeLoc = place.getLocation();
                         if (placeLoc == null) continue;
 
-                        float[] dist = new float[1];
-                        android.location.Location.distanceBetween(
+                        // same metric as the live updates, so the first fix changes nothing
+                        double distanceMeters = DistanceEngine.distanceMeters(
                                 lat, lon,          // use search center here
-                                placeLoc.latitude, placeLoc.longitude,
-                                dist
+                                placeLoc.latitude, placeLoc.longitude
                         );
-                        double distanceMeters = dist[0];
 
                         String name = place.getDisplayName();
                         if (name == null || name.isEmpty()) name = "Unknown place";
@@ -771,6 +793,7 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
                         if (place.getPhotoMetadatas() != null &&
                                 !place.getPhotoMetadatas().isEmpty()) {
                             photoMetadata = place.getPhotoMetadatas().get(0);
+                            PhotoRefs.remember(place.getId(), photoMetadata);
                         }
 
                         Double rating = place.getRating();
@@ -790,8 +813,11 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
                         );
 
                         // Cache in Firestore (for offline) – upsert in batch
-                        DocumentReference ref = userAttractionsRef().document(placeId);
-                        batch.set(ref, firestoreAttraction);
+                        if (writeDeduper.needsWrite(userEmail, firestoreAttraction)) {
+                            DocumentReference ref = userAttractionsRef().document(placeId);
+                            batch.set(ref, firestoreAttraction);
+                            toWrite.add(firestoreAttraction);
+                        }
 
                         // Build in-memory Attraction model directly from what we already have
                         Attraction attraction = new Attraction(
@@ -809,21 +835,35 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
                         attractions.add(attraction);
                     }
 
+                    // Remember this cell so revisits skip the Places call; a fan-out with
+                    // failed cells is shown but not cached, so the next visit fills the holes
+                    if (result.complete) tileCache.put(lat, lon, includedTypes, attractions);
+
+                    if (toWrite.isEmpty()) {
+                        // Everything is already cached and fresh: skip the commit entirely
+                        finalizeFirestoreAttractions(attractions, merge, query);
+                        return;
+                    }
+                    offlineIndex = null; // Firestore cache is about to change
+
                     // Commit cache in background, but UI uses local list immediately
                     batch.commit()
                             .addOnSuccessListener(v -> {
-                                Log.d("MAP", "Attractions cached to Firestore");
-                                finalizeFirestoreAttractions(attractions);
+                                Log.d("MAP", toWrite.size() + " attractions cached to Firestore");
+                                writeDeduper.markWritten(userEmail, toWrite);
+                                finalizeFirestoreAttractions(attractions, merge, query);
                             })
                             .addOnFailureListener(e -> {
                                 Log.e("MAP", "Failed to cache attractions: " + e.getMessage());
-                                finalizeFirestoreAttractions(attractions); // still update UI
+                                finalizeFirestoreAttractions(attractions, merge, query); // still update UI
                             });
 
                 })
                 .addOnFailureListener(e -> {
                     e.printStackTrace();
-                    if (!isAdded()) return;
+                    // a failed (or cancelled) search is over too: let the same tile be retried
+                    nearbyScheduler.finish(query);
+                    if (!isAdded() || !nearbyScheduler.isCurrent(query)) return;
                     Toast.makeText(getContext(),
                             "Error loading places: " + e.getMessage(),
                             Toast.LENGTH_SHORT).show();
@@ -831,106 +871,195 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
     }
 
     /**
-     * Sorts, loads favorites from Firestore, marks them, then updates UI.
+     * Sorts, marks favorites from the in-memory FavoritesStore, then updates UI.
+     * With merge=true the list is added to the current results instead of replacing them.
+     * Results of a query that was superseded meanwhile are dropped.
      */
-    private void finalizeFirestoreAttractions(List<Attraction> list) {
+    private void finalizeFirestoreAttractions(List<Attraction> list,
+                                              boolean merge,
+                                              NearbyQueryScheduler.Query query) {
 
-        if (!isAdded() || getActivity() == null) {
+        if (!isAdded() || getActivity() == null || !nearbyScheduler.isCurrent(query)) {
+            nearbyScheduler.finish(query);
             return;
         }
 
         // Sort by distance ascending
         Collections.sort(list, Comparator.comparingDouble(Attraction::getDistanceMeters));
-        List<Attraction> top20 = list.subList(0, Math.min(20, list.size()));
-
-        // Load favorite IDs for this user and mark them
-        db.collection("users")
-                .document(userEmail)
-                .collection("favorites")
-                .get()
-                .addOnSuccessListener(snapshot -> {
+        List<Attraction> nearest = list.subList(0, Math.min(MAX_RESULTS, list.size()));
 
-                    List<String> favIds = new ArrayList<>();
-                    for (DocumentSnapshot d : snapshot.getDocuments()) {
-                        favIds.add(d.getId()); // favorite placeId
-                    }
+        // Favorites are kept live by the store's snapshot listener: no read needed here
+        markFavorites(nearest);
+        showAttractions(nearest, merge, query);
+    }
 
-                    markFavorites(top20, favIds);
+    // Replaces (or merges into) the master list and refreshes list + map.
+    private void showAttractions(List<Attraction> list,
+                                 boolean merge,
+                                 NearbyQueryScheduler.Query query) {
+        if (!nearbyScheduler.isCurrent(query)) return;
+        nearbyScheduler.finish(query);
+
+        if (merge) {
+            Set<String> known = new HashSet<>();
+            for (Attraction a : allAttractions) known.add(a.getPlaceId());
+            for (Attraction a : list) {
+                if (known.add(a.getPlaceId())) allAttractions.add(a);
+            }
+        } else {
+            allAttractions.clear();
+            allAttractions.addAll(list);
+        }
+        applyFiltersAndSorting();
 
-                    if (!isAdded() || getActivity() == null) return;
+        if (!merge) topUpIfFilterTooSparse();
+    }
 
-                    requireActivity().runOnUiThread(() -> {
-                        if (!isAdded() || getActivity() == null) return;
+    // Superset mode: when the narrowed filter leaves too few places, merge in that type alone
+    // for this tile. Runs on every sparse refresh, since a replacing refresh drops the merged
+    // places again; the narrow tile is cached, so only the first time costs a Places call.
+    private void topUpIfFilterTooSparse() {
+        if (!FETCH_SUPERSET) return;
+        if (lastFetchLat == 0 && lastFetchLon == 0) return;
 
-                        allAttractions.clear();
-                        allAttractions.addAll(top20);
-                        applyFiltersAndSorting();
-                    });
-                })
-                .addOnFailureListener(e -> {
-                    // If favorites fail, still show list
-                    if (!isAdded() || getActivity() == null) return;
+        List<String> narrow = typesForCurrentFilter();
+        if (narrow.size() == SUPERSET_TYPES.size()) return; // "All types" is the superset itself
 
-                    requireActivity().runOnUiThread(() -> {
-                        allAttractions.clear();
-                        allAttractions.addAll(top20);
-                        applyFiltersAndSorting();
-                    });
-                });
+        int matches = 0;
+        for (Attraction a : allAttractions) {
+            if (matchesFilter(a)) matches++;
+        }
+        if (matches >= MIN_FILTERED_RESULTS) return;
+
+        // Tie the top-up to the newest query so a later search cancels it as well
+        NearbyQueryScheduler.Query query = nearbyScheduler.current();
+        if (query == null) return;
+
+        double lat = lastFetchLat;
+        double lon = lastFetchLon;
+        tileCache.lookup(lat, lon, narrow, cached -> {
+            // posted: the view may be gone or a newer search started meanwhile
+            if (!isAdded() || !nearbyScheduler.isCurrent(query)) return;
+
+            if (cached != null) {
+                finalizeFirestoreAttractions(cached, true, query);
+            } else if (isOnline()) {
+                loadNearbyAttractions(lat, lon, narrow, true, query);
+            }
+        });
     }
 
-    // Mark favorites on the Attraction objects before feeding them to adapter
-    private void markFavorites(List<Attraction> list, List<String> favIds) {
+    // Mark favorites on the Attraction objects before feeding them to adapter (O(1) per item)
+    private void markFavorites(List<Attraction> list) {
+        FavoritesStore favorites = FavoritesStore.get();
         for (Attraction a : list) {
-            a.setFavorite(favIds.contains(a.getPlaceId()));
+            a.setFavorite(favorites.isFavorite(a.getPlaceId()));
         }
     }
 
-    // Loads attractions from Firestore local cache (offline mode).
-    private void loadOfflineAttractions() {
+    // Favorites changed (here or on another screen): re-mark the hearts of the current results.
+    private void onFavoritesChanged() {
+        markFavorites(allAttractions);
+        if (nearbyAdapter != null) {
+            nearbyAdapter.notifyItemRangeChanged(0, nearbyAdapter.getItemCount());
+        }
+    }
+
+    // Loads attractions near the query centre from the Firestore local cache (offline mode).
+    // The cache is read and indexed once; later offline queries only hit the spatial index.
+    private void loadOfflineAttractions(NearbyQueryScheduler.Query query) {
+        if (offlineIndex != null) {
+            finalizeFirestoreAttractions(nearbyFromIndex(offlineIndex, query), false, query);
+            return;
+        }
+
         Source source = Source.CACHE;
 
         userAttractionsRef()
                 .get(source)
-                .addOnSuccessListener(snapshot -> {
-
-                    List<Attraction> list = new ArrayList<>();
+                .addOnSuccessListener(BACKGROUND, snapshot -> {
 
+                    // Deserialize + index off the UI thread; the cache can be large
+                    AttractionSpatialIndex index = new AttractionSpatialIndex();
                     for (DocumentSnapshot doc : snapshot.getDocuments()) {
                         FirestoreAttraction fs = doc.toObject(FirestoreAttraction.class);
-                        if (fs == null) continue;
-
-                        Attraction a = new Attraction(
-                                fs.getName(),
-                                fs.getLat(),
-                                fs.getLng(),
-                                fs.getDistanceMeters(),
-                                fs.getTypeLabel(),
-                                fs.getPrimaryTypeKey(),
-                                fs.getRating(),
-                                fs.getRatingCount(),
-                                null,
-                                fs.getId()
-                        );
-
-                        list.add(a);
+                        if (fs != null) index.add(fs);
                     }
+                    List<Attraction> list = nearbyFromIndex(index, query);
 
-                    finalizeFirestoreAttractions(list);
-
+                    mainHandler.post(() -> {
+                        offlineIndex = index;
+                        finalizeFirestoreAttractions(list, false, query);
+                    });
                 })
                 .addOnFailureListener(e -> {
+                    nearbyScheduler.finish(query);
                     if (!isAdded()) return;
                     Toast.makeText(getContext(), "No offline data available", Toast.LENGTH_SHORT).show();
                 });
     }
 
-    // Based on current filter state, picks which place types to request and chooses online/offline source.
+    // Cached attractions within the search radius, with distances from the query centre.
+    private List<Attraction> nearbyFromIndex(AttractionSpatialIndex index,
+                                             NearbyQueryScheduler.Query query) {
+        List<Attraction> list = new ArrayList<>();
+
+        for (AttractionSpatialIndex.Hit hit :
+                index.withinRadius(query.lat, query.lon, SEARCH_RADIUS_METERS)) {
+            FirestoreAttraction fs = hit.attraction;
+            list.add(new Attraction(
+                    fs.getName(),
+                    fs.getLat(),
+                    fs.getLng(),
+                    hit.distanceMeters,
+                    fs.getTypeLabel(),
+                    fs.getPrimaryTypeKey(),
+                    fs.getRating(),
+                    fs.getRatingCount(),
+                    null,
+                    fs.getId()
+            ));
+        }
+        return list;
+    }
+
+    // Picks which place types to request (the superset, or the current filter) and hands the
+    // search to the scheduler, which debounces bursts and cancels superseded searches.
     private void requestNearbyForCurrentFilter(double lat, double lon) {
+        List<String> types = FETCH_SUPERSET ? SUPERSET_TYPES : typesForCurrentFilter();
+        nearbyScheduler.submit(lat, lon, types);
+    }
+
+    // Runs a scheduled nearby search, choosing between online and offline source.
+    private void runNearbyQuery(NearbyQueryScheduler.Query query) {
+        if (!isAdded()) return;
+
+        if (isOnline()) {
+            // Serve from the tile cache when this cell was fetched recently
+            tileCache.lookup(query.lat, query.lon, query.types, cached -> {
+                // posted: the view may be gone or a newer search started meanwhile
+                if (!isAdded() || !nearbyScheduler.isCurrent(query)) {
+                    nearbyScheduler.finish(query);
+                    return;
+                }
+
+                if (cached != null) {
+                    finalizeFirestoreAttractions(cached, false, query);
+                } else {
+                    loadNearbyAttractions(query.lat, query.lon, query.types, false, query);
+                }
+            });
+        } else {
+            loadOfflineAttractions(query);
+        }
+    }
+
+    // Place types matching the current filter spinner selection.
+    private List<String> typesForCurrentFilter() {
         List<String> types;
 
         if (filterTouristAttraction && filterMuseum && filterArtGallery) {
-            types = Arrays.asList("tourist_attraction", "museum", "art_gallery");
+            types = SUPERSET_TYPES;
         } else if (filterTouristAttraction && !filterMuseum && !filterArtGallery) {
             types = Arrays.asList("tourist_attraction");
         } else if (!filterTouristAttraction && filterMuseum && !filterArtGallery) {
@@ -938,14 +1067,9 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
         } else if (!filterTouristAttraction && !filterMuseum && filterArtGallery) {
             types = Arrays.asList("art_gallery");
         } else {
-            types = Arrays.asList("tourist_attraction", "museum", "art_gallery");
-        }
-
-        if (isOnline()) {
-            loadNearbyAttractions(lat, lon, types);
-        } else {
-            loadOfflineAttractions();
+            types = SUPERSET_TYPES;
         }
+        return types;
     }
 
 
@@ -1006,94 +1130,100 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
         List<Attraction> filtered = new ArrayList<>();
 
         for (Attraction a : allAttractions) {
-            String key = a.getPrimaryTypeKey();
-            if (key == null) continue;
-
-            boolean include = false;
-
-            if (filterTouristAttraction && "tourist_attraction".equals(key)) {
-                include = true;
-            }
-            if (filterMuseum && "museum".equals(key)) {
-                include = true;
-            }
-            if (filterArtGallery && "art_gallery".equals(key)) {
-                include = true;
-            }
-
-            if (include) {
+            if (matchesFilter(a)) {
                 filtered.add(a);
             }
         }
 
-        if (currentSortMode == SortMode.DISTANCE) {
-            Collections.sort(
-                    filtered,
-                    Comparator.comparingDouble(Attraction::getDistanceMeters)
-            );
-        } else if (currentSortMode == SortMode.RATING) {
-            Collections.sort(filtered, (a, b) -> {
-                double sa = computeWeightedRating(a);
-                double sb = computeWeightedRating(b);
-                return Double.compare(sb, sa);
-            });
-        } else if (currentSortMode == SortMode.BEST) {
-            Collections.sort(filtered, (a, b) -> {
-                double sa = computeCombinedScore(a);
-                double sb = computeCombinedScore(b);
-                return Double.compare(sb, sa);
-            });
-        }
+        // Score once and materialize all three orders for this filtered set
+        ranking = AttractionRanker.rank(filtered);
 
         // Update list and cluster markers on main thread.
         getActivity().runOnUiThread(() -> {
-            nearbyAdapter.updateItems(filtered);
+            showRanking();
 
             if (clusterManager == null) return;
-
-            clusterManager.clearItems();
-            for (Attraction a : filtered) {
-                clusterManager.addItem(new AttractionClusterItem(a));
-            }
-            clusterManager.cluster();
+            syncClusterItems(filtered);
         });
     }
 
-    // Wilson score rating that favors places with more reviews.
-    private double computeWeightedRating(Attraction a) {
-        Double r = a.getRating();
-        Integer v = a.getRatingCount();
+    // Shows the precomputed order for the current sort mode; no sorting happens here.
+    private void showRanking() {
+        if (ranking == null) return;
 
-        if (r == null || v == null || v == 0) {
-            return -1.0;
+        List<Attraction> ordered;
+        if (currentSortMode == SortMode.RATING) {
+            ordered = ranking.byRating();
+        } else if (currentSortMode == SortMode.BEST) {
+            ordered = ranking.byBest();
+        } else {
+            ordered = ranking.byDistance();
+        }
+        nearbyAdapter.updateItems(ordered);
+    }
+
+    // Diffs the visible attractions against the current markers by placeId and only adds/removes
+    // what changed; unchanged markers keep their AttractionClusterItem so they are not re-rendered.
+    private void syncClusterItems(List<Attraction> visible) {
+        Map<String, Attraction> wanted = new HashMap<>();
+        for (Attraction a : visible) {
+            wanted.put(a.getPlaceId(), a);
         }
 
-        double rating = r;
-        double n = v;
-        double z = 1.96;
+        List<AttractionClusterItem> removed = new ArrayList<>();
+        Iterator<Map.Entry<String, AttractionClusterItem>> it = clusterItems.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, AttractionClusterItem> entry = it.next();
+            AttractionClusterItem item = entry.getValue();
+            Attraction a = wanted.get(entry.getKey());
+
+            if (a != null && item.hasSameMarker(a)) {
+                item.setAttraction(a); // reuse marker, refresh data behind it
+            } else {
+                removed.add(item);
+                it.remove();
+            }
+        }
 
-        double p = rating / 5.0;
-        double z2 = z * z;
+        List<AttractionClusterItem> added = new ArrayList<>();
+        for (Attraction a : wanted.values()) {
+            if (!clusterItems.containsKey(a.getPlaceId())) {
+                AttractionClusterItem item = new AttractionClusterItem(a);
+                clusterItems.put(a.getPlaceId(), item);
+                added.add(item);
+            }
+        }
 
-        double numerator = p + z2 / (2.0 * n)
-                - z * Math.sqrt((p * (1.0 - p) + z2 / (4.0 * n)) / n);
-        double denominator = 1.0 + z2 / n;
+        if (removed.isEmpty() && added.isEmpty()) return; // nothing to re-cluster
 
-        double lowerBound = numerator / denominator;
-        return lowerBound * 5.0;
+        if (!removed.isEmpty()) clusterManager.removeItems(removed);
+        if (!added.isEmpty()) clusterManager.addItems(added);
+        clusterManager.cluster();
     }
 
-    // Combined score for "Best overall": high rating, penalized by distance.
-    private double computeCombinedScore(Attraction a) {
-        double weightedRating = computeWeightedRating(a);
-        if (weightedRating < 0) {
-            weightedRating = 0.0;
+    // Recomputes distances of the current results from the live position. Only re-ranks when
+    // an order actually changed; otherwise just the distance text of the rows is rebound.
+    private void refreshDistancesFrom(double lat, double lon) {
+        if (ranking == null || allAttractions.isEmpty()) return;
+
+        if (!DistanceEngine.updateDistances(allAttractions, lat, lon)) return;
+
+        if (AttractionRanker.isStillOrdered(ranking)) {
+            nearbyAdapter.notifyItemRangeChanged(
+                    0, nearbyAdapter.getItemCount(), NearbyAdapter.PAYLOAD_DISTANCE);
+        } else {
+            applyFiltersAndSorting();
         }
+    }
 
-        double distanceKm = a.getDistanceMeters() / 1000.0;
-        double penalty = 0.15 * distanceKm;
+    // True if the attraction's primary type is enabled in the current filter.
+    private boolean matchesFilter(Attraction a) {
+        String key = a.getPrimaryTypeKey();
+        if (key == null) return false;
 
-        return weightedRating - penalty;
+        return (filterTouristAttraction && "tourist_attraction".equals(key))
+                || (filterMuseum && "museum".equals(key))
+                || (filterArtGallery && "art_gallery".equals(key));
     }
 
 
@@ -1124,9 +1254,21 @@ public class MapFragment extends Fragment implements OnMapReadyCallback {
         fusedLocationClient.removeLocationUpdates(locationCallback);
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        // the prefetcher is built per view: a recreated view must not leave its window running
+        if (photoPrefetcher != null) photoPrefetcher.cancelAll();
+        // rows still on screen are not recycled on their own: detaching the adapter recycles
+        // them, so onViewRecycled releases their photos
+        if (recyclerNearby != null) recyclerNearby.setAdapter(null);
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
+        if (nearbyScheduler != null) nearbyScheduler.cancelAll();
+        FavoritesStore.get().removeListener(favoritesListener);
         if (mapView != null) mapView.onDestroy();
     }
 
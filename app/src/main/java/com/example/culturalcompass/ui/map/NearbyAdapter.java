@@ -1,6 +1,5 @@
 package com.example.culturalcompass.ui.map;
 
-import android.graphics.Bitmap;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -16,11 +15,11 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.culturalcompass.R;
 import com.example.culturalcompass.model.Attraction;
 import com.example.culturalcompass.model.FirestoreAttraction;
+import com.example.culturalcompass.ui.favorites.FavoritesStore;
 import com.example.culturalcompass.ui.favorites.PhotoCacheManager;
-import com.google.android.libraries.places.api.model.PhotoMetadata;
-import com.google.android.libraries.places.api.net.FetchPhotoRequest;
+import com.example.culturalcompass.ui.favorites.PhotoLoader;
+import com.example.culturalcompass.ui.favorites.PhotoRefs;
 import com.google.android.libraries.places.api.net.PlacesClient;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.auth.FirebaseAuth;
 
 import java.util.List;
@@ -28,6 +27,9 @@ import java.util.Locale;
 
 public class NearbyAdapter extends RecyclerView.Adapter<NearbyAdapter.ViewHolder> {
 
+    // Partial rebind: only the distance text changed (live location refresh)
+    public static final Object PAYLOAD_DISTANCE = new Object();
+
     private List<Attraction> items;
     private PlacesClient placesClient;
     private OnAttractionClickListener listener;
@@ -58,6 +60,15 @@ public class NearbyAdapter extends RecyclerView.Adapter<NearbyAdapter.ViewHolder
         return new ViewHolder(view);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder h, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.contains(PAYLOAD_DISTANCE) && payloads.size() == 1) {
+            bindDistance(h, items.get(position));
+            return;
+        }
+        super.onBindViewHolder(h, position, payloads);
+    }
+
     @Override
     public void onBindViewHolder(@NonNull ViewHolder h, int position) {
 
@@ -92,13 +103,7 @@ public class NearbyAdapter extends RecyclerView.Adapter<NearbyAdapter.ViewHolder
             }
         }
 
-        // Distance text
-        double m = a.getDistanceMeters();
-        h.txtDistance.setText(
-                (m < 1000)
-                        ? String.format(Locale.getDefault(), "%.0f m away", m)
-                        : String.format(Locale.getDefault(), "%.1f km away", m / 1000.0)
-        );
+        bindDistance(h, a);
 
         // Rating section
         Double r = a.getRating();
@@ -118,30 +123,11 @@ public class NearbyAdapter extends RecyclerView.Adapter<NearbyAdapter.ViewHolder
             h.layoutRating.setVisibility(View.VISIBLE);
         }
 
-        // photo loading
-        Bitmap cached = PhotoCacheManager.load(h.itemView.getContext(), a.getPlaceId());
-        if (cached != null) {
-            h.imgPhoto.setImageBitmap(cached);
-        } else {
-            h.imgPhoto.setImageResource(R.drawable.ic_landmark_placeholder);
-
-            PhotoMetadata meta = a.getPhotoMetadata();
-            if (meta != null) {
-                FetchPhotoRequest photoReq = FetchPhotoRequest.builder(meta)
-                        .setMaxWidth(400)
-                        .setMaxHeight(400)
-                        .build();
-
-                placesClient.fetchPhoto(photoReq).addOnSuccessListener(resp -> {
-                    Bitmap bmp = resp.getBitmap();
-                    PhotoCacheManager.save(h.itemView.getContext(), a.getPlaceId(), bmp);
-                    h.imgPhoto.setImageBitmap(bmp);
-                });
-            }
-        }
+        // photo loading (async, cancelled when this row is rebound or recycled)
+        PhotoLoader.load(h.imgPhoto, placesClient, a.getPlaceId(), a.getPhotoMetadata(),
+                PhotoCacheManager.SIZE_THUMB);
 
         // favorite toogle
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
         String email = FirebaseAuth.getInstance().getCurrentUser().getEmail();
 
         updateHeartIcon(h, a.isFavorite());
@@ -156,53 +142,54 @@ public class NearbyAdapter extends RecyclerView.Adapter<NearbyAdapter.ViewHolder
             // Refresh row immediately
             notifyItemChanged(h.getBindingAdapterPosition());
 
-            if (newFav) {
-                // Add to Firestore
-                FirestoreAttraction fa = new FirestoreAttraction(
-                        a.getPlaceId(),
-                        a.getName(),
-                        a.getLat(),
-                        a.getLng(),
-                        a.getDistanceMeters(),
-                        a.getType(),
-                        a.getPrimaryTypeKey(),
-                        a.getRating(),
-                        a.getRatingCount()
-                );
-
-                db.collection("users")
-                        .document(email)
-                        .collection("favorites")
-                        .document(a.getPlaceId())
-                        .set(fa)
-                        .addOnSuccessListener(x ->
-                                Toast.makeText(v.getContext(),
-                                        "Added: " + a.getName(),
-                                        Toast.LENGTH_SHORT).show()
-                        );
-
-            } else {
-                // Remove from Firestore
-                db.collection("users")
-                        .document(email)
-                        .collection("favorites")
-                        .document(a.getPlaceId())
-                        .delete()
-                        .addOnSuccessListener(x ->
-                                Toast.makeText(v.getContext(),
-                                        "Removed: " + a.getName(),
-                                        Toast.LENGTH_SHORT).show()
-                        );
-            }
+            FirestoreAttraction fa = new FirestoreAttraction(
+                    a.getPlaceId(),
+                    a.getName(),
+                    a.getLat(),
+                    a.getLng(),
+                    a.getDistanceMeters(),
+                    a.getType(),
+                    a.getPrimaryTypeKey(),
+                    a.getRating(),
+                    a.getRatingCount()
+            );
+            // keep the photo reference so favorites can skip the fetchPlace lookup
+            PhotoRefs.save(fa, a.getPhotoMetadata());
+
+            // Optimistic: the store flips the heart everywhere now and batches the write
+            FavoritesStore.get().setFavorite(fa, newFav);
+            Toast.makeText(v.getContext(),
+                    (newFav ? "Added: " : "Removed: ") + a.getName(),
+                    Toast.LENGTH_SHORT).show();
         });
     }
 
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder h) {
+        super.onViewRecycled(h);
+        PhotoLoader.cancel(h.imgPhoto);
+    }
+
+    // Distance text
+    private void bindDistance(ViewHolder h, Attraction a) {
+        double m = a.getDistanceMeters();
+        h.txtDistance.setText(
+                (m < 1000)
+                        ? String.format(Locale.getDefault(), "%.0f m away", m)
+                        : String.format(Locale.getDefault(), "%.1f km away", m / 1000.0)
+        );
+    }
+
     private void updateHeartIcon(ViewHolder h, boolean fav) {
         h.imgFavorite.setImageResource(
                 fav ? R.drawable.ic_heart_filled : R.drawable.ic_heart_outline
         );
     }
 
+    public Attraction getItem(int position) {
+        return items.get(position);
+    }
+
     @Override
     public int getItemCount() {
         return items.size();
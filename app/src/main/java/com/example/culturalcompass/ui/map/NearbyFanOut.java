@@ -0,0 +1,162 @@
+package com.example.culturalcompass.ui.map;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.libraries.places.api.model.CircularBounds;
+import com.google.android.libraries.places.api.model.Place;
+import com.google.android.libraries.places.api.net.PlacesClient;
+import com.google.android.libraries.places.api.net.SearchNearbyRequest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// Splits one nearby search disk into 7 smaller circles (a centre cell plus a hexagonal ring)
+// and queries them with bounded parallelism. searchNearby returns at most 20 places per call,
+// so in dense areas this gives up to 7x the coverage of a single request.
+public final class NearbyFanOut {
+
+    public static final int MAX_RESULTS_PER_CELL = 20; // Places API limit per request
+    public static final int CELL_COUNT = 7;
+
+    private static final int MAX_PARALLEL = 3;
+    private static final double METERS_PER_DEGREE_LAT = 111320.0;
+
+    // Serial background executor: sub-responses are merged one at a time, off the UI thread.
+    private static final Executor MERGE_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private NearbyFanOut() {
+    }
+
+    // Merged places; complete is false if some cells failed, so the set has holes.
+    public static final class Result {
+        public final List<Place> places;
+        public final boolean complete;
+
+        public Result(List<Place> places, boolean complete) {
+            this.places = places;
+            this.complete = complete;
+        }
+    }
+
+    // 7 circles of radius R/2 (centre + 6 at distance R*sqrt(3)/2) fully cover a disk of radius R.
+    public static List<CircularBounds> hexCells(LatLng center, double radiusMeters) {
+        double cellRadius = radiusMeters / 2.0;
+        double ringDistance = radiusMeters * Math.sqrt(3) / 2.0;
+        double metersPerDegreeLon =
+                METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(center.latitude));
+
+        List<CircularBounds> cells = new ArrayList<>(CELL_COUNT);
+        cells.add(CircularBounds.newInstance(center, cellRadius));
+
+        for (int i = 0; i < 6; i++) {
+            double angle = Math.toRadians(60 * i);
+            double dLat = ringDistance * Math.sin(angle) / METERS_PER_DEGREE_LAT;
+            double dLon = ringDistance * Math.cos(angle) / metersPerDegreeLon;
+            cells.add(CircularBounds.newInstance(
+                    new LatLng(center.latitude + dLat, center.longitude + dLon),
+                    cellRadius
+            ));
+        }
+        return cells;
+    }
+
+    // Searches all cells and returns the places de-duplicated by id (first occurrence wins).
+    // Fails only if every sub-request failed; cancelling the token cancels the returned task.
+    public static Task<Result> search(PlacesClient client,
+                                           LatLng center,
+                                           double radiusMeters,
+                                           List<Place.Field> fields,
+                                           List<String> includedTypes,
+                                           CancellationToken token) {
+
+        Run run = new Run(client, fields, includedTypes, token, hexCells(center, radiusMeters));
+
+        // the initial launches run on MERGE_EXECUTOR as well, so a fast first response
+        // can never poll the queue at the same time
+        MERGE_EXECUTOR.execute(() -> {
+            int initial = Math.min(MAX_PARALLEL, run.queue.size());
+            for (int i = 0; i < initial; i++) {
+                run.launchNext();
+            }
+        });
+        return run.result.getTask();
+    }
+
+    // State of one fan-out; only touched from MERGE_EXECUTOR.
+    private static class Run {
+        final PlacesClient client;
+        final List<Place.Field> fields;
+        final List<String> includedTypes;
+        final CancellationToken token;
+        final TaskCompletionSource<Result> result;
+
+        final Queue<CircularBounds> queue;
+        final Map<String, Place> merged = new LinkedHashMap<>();
+        int remaining;
+        Exception firstError;
+
+        Run(PlacesClient client,
+            List<Place.Field> fields,
+            List<String> includedTypes,
+            CancellationToken token,
+            List<CircularBounds> cells) {
+            this.client = client;
+            this.fields = fields;
+            this.includedTypes = includedTypes;
+            this.token = token;
+            this.result = new TaskCompletionSource<>(token);
+            this.queue = new ArrayDeque<>(cells);
+            this.remaining = cells.size();
+        }
+
+        void launchNext() {
+            CircularBounds cell = queue.poll();
+            if (cell == null) return;
+
+            SearchNearbyRequest request =
+                    SearchNearbyRequest.builder(cell, fields)
+                            .setIncludedTypes(includedTypes)
+                            .setMaxResultCount(MAX_RESULTS_PER_CELL)
+                            .setRankPreference(SearchNearbyRequest.RankPreference.DISTANCE)
+                            .setCancellationToken(token)
+                            .build();
+
+            client.searchNearby(request).addOnCompleteListener(MERGE_EXECUTOR, task -> {
+                if (task.isSuccessful()) {
+                    for (Place place : task.getResult().getPlaces()) {
+                        String id = place.getId();
+                        if (id != null && !merged.containsKey(id)) {
+                            merged.put(id, place);
+                        }
+                    }
+                } else if (firstError == null) {
+                    firstError = task.getException() != null
+                            ? task.getException()
+                            : new Exception("Nearby search cancelled");
+                }
+
+                remaining--;
+                if (token.isCancellationRequested()) return; // result task is already cancelled
+
+                if (!queue.isEmpty()) {
+                    launchNext();
+                } else if (remaining == 0) {
+                    if (merged.isEmpty() && firstError != null) {
+                        result.trySetException(firstError);
+                    } else {
+                        result.trySetResult(
+                                new Result(new ArrayList<>(merged.values()), firstError == null));
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.culturalcompass.ui.map;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.CancellationTokenSource;
+
+import java.util.List;
+
+// Coalesces nearby queries coming from GPS updates, search, spinners and "my location".
+// Bursts are debounced, a query identical to the one in flight is dropped, and starting a
+// new query cancels the previous Places request so stale results never reach the UI.
+// All methods are expected to be called on the main thread.
+public class NearbyQueryScheduler {
+
+    private static final long DEBOUNCE_MS = 300;
+
+    public interface Runner {
+        void run(Query query);
+    }
+
+    // Runs the debounced queries: the main looper in the app, a manual clock in tests.
+    interface Timer {
+        void postDelayed(Runnable r, long delayMs);
+
+        void cancel(Runnable r);
+    }
+
+    // One scheduled nearby search; callbacks check isCurrent() before touching the UI.
+    public static class Query {
+        public final double lat;
+        public final double lon;
+        public final List<String> types;
+
+        final String key;
+        final int generation;
+        final CancellationTokenSource cancellation = new CancellationTokenSource();
+        boolean finished = false;
+
+        Query(double lat, double lon, List<String> types, String key, int generation) {
+            this.lat = lat;
+            this.lon = lon;
+            this.types = types;
+            this.key = key;
+            this.generation = generation;
+        }
+
+        // Pass this to Places requests so superseded searches are cancelled server-side.
+        public CancellationToken token() {
+            return cancellation.getToken();
+        }
+    }
+
+    private final Timer timer;
+    private final Runner runner;
+
+    private int generation = 0;
+    @Nullable private Query current;
+    @Nullable private Runnable pending;
+    @Nullable private String pendingKey;
+
+    public NearbyQueryScheduler(Runner runner) {
+        this(runner, mainTimer());
+    }
+
+    NearbyQueryScheduler(Runner runner, Timer timer) {
+        this.runner = runner;
+        this.timer = timer;
+    }
+
+    private static Timer mainTimer() {
+        Handler main = new Handler(Looper.getMainLooper());
+        return new Timer() {
+            @Override
+            public void postDelayed(Runnable r, long delayMs) {
+                main.postDelayed(r, delayMs);
+            }
+
+            @Override
+            public void cancel(Runnable r) {
+                main.removeCallbacks(r);
+            }
+        };
+    }
+
+    // Schedules a search; only the last call within DEBOUNCE_MS actually runs.
+    public void submit(double lat, double lon, List<String> types) {
+        String key = NearbyTileCache.tileKey(lat, lon, types);
+
+        // Same tile + types as the request already on its way: nothing new to ask for.
+        if (current != null && !current.finished && current.key.equals(key)) {
+            cancelPending();
+            return;
+        }
+        if (pending != null && key.equals(pendingKey)) return;
+
+        cancelPending();
+        pendingKey = key;
+        pending = () -> {
+            pending = null;
+            pendingKey = null;
+            start(lat, lon, types, key);
+        };
+        timer.postDelayed(pending, DEBOUNCE_MS);
+    }
+
+    private void start(double lat, double lon, List<String> types, String key) {
+        if (current != null) {
+            current.cancellation.cancel(); // supersede the older search
+        }
+        current = new Query(lat, lon, types, key, ++generation);
+        runner.run(current);
+    }
+
+    // The newest query, or null if none was started yet.
+    @Nullable
+    public Query current() {
+        return current;
+    }
+
+    // True if no newer query has been started since this one.
+    public boolean isCurrent(Query query) {
+        return current != null && query.generation == current.generation;
+    }
+
+    // Marks the query as delivered so an identical later submit is not treated as a duplicate.
+    public void finish(Query query) {
+        query.finished = true;
+    }
+
+    // Drops the debounced query and cancels the in-flight one (e.g. when the view goes away).
+    public void cancelAll() {
+        cancelPending();
+        if (current != null) {
+            current.cancellation.cancel();
+            current.finished = true;
+            generation++;
+            current = null;
+        }
+    }
+
+    private void cancelPending() {
+        if (pending != null) {
+            timer.cancel(pending);
+            pending = null;
+            pendingKey = null;
+        }
+    }
+}
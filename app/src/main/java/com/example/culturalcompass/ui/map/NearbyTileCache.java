@@ -0,0 +1,260 @@
+package com.example.culturalcompass.ui.map;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.culturalcompass.model.Attraction;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Caches Places nearby results per geohash cell + included types, in memory and on disk.
+// A search centre that falls into a cell we fetched recently is served locally instead of
+// calling searchNearby again; distances are recomputed from the new centre on every hit.
+// The disk copy is bounded: expired tiles are deleted when read and the least recently used
+// files are dropped above MAX_DISK_TILES.
+// Disk hits carry no PhotoMetadata (it is not safe to persist), so their rows get photos
+// from the photo disk cache and only fall back to fetchPlace + fetchPhoto on a miss.
+public class NearbyTileCache {
+
+    private static final String TAG = "NearbyTileCache";
+    private static final String DIR = "nearby_tiles"; // folder where we store cached tiles
+
+    private static final int PRECISION = 6;                  // ~1.2 km x 0.6 km cells
+    private static final long TTL_MS = 6 * 60 * 60 * 1000L;  // places rarely change within hours
+    private static final int MAX_MEMORY_TILES = 64;
+    private static final int MAX_DISK_TILES = 256;
+
+    public interface Callback {
+        // Always posted to the main thread, never called from inside lookup(), so callers see
+        // the same ordering for memory and disk hits. Null means the tile was missing or expired.
+        void onResult(@Nullable List<Attraction> attractions);
+    }
+
+    private static NearbyTileCache instance;
+
+    private final File dir;
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+
+    // access-ordered map so the least recently used tile is dropped first
+    private final Map<String, Tile> memory =
+            new LinkedHashMap<String, Tile>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Tile> eldest) {
+                    return size() > MAX_MEMORY_TILES;
+                }
+            };
+
+    private static class Tile {
+        final long savedAt;
+        final List<Attraction> attractions;
+
+        Tile(long savedAt, List<Attraction> attractions) {
+            this.savedAt = savedAt;
+            this.attractions = attractions;
+        }
+
+        boolean isFresh() {
+            return System.currentTimeMillis() - savedAt < TTL_MS;
+        }
+    }
+
+    public static synchronized NearbyTileCache get(Context ctx) {
+        if (instance == null) {
+            instance = new NearbyTileCache(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private NearbyTileCache(Context appCtx) {
+        dir = new File(appCtx.getCacheDir(), DIR);
+    }
+
+    // Cell + sorted type set, e.g. "sxk3bc|art_gallery,museum,tourist_attraction"
+    public static String tileKey(double lat, double lon, List<String> types) {
+        List<String> sorted = new ArrayList<>(types);
+        Collections.sort(sorted);
+        return Geohash.encode(lat, lon, PRECISION) + "|" + String.join(",", sorted);
+    }
+
+    // Looks up the tile for (lat, lon) in memory first, then on disk.
+    public void lookup(double lat, double lon, List<String> types, Callback cb) {
+        String key = tileKey(lat, lon, types);
+
+        Tile tile;
+        synchronized (memory) {
+            tile = memory.get(key);
+            // an expired tile must not hold one of the LRU slots
+            if (tile != null && !tile.isFresh()) memory.remove(key);
+        }
+        if (tile != null && tile.isFresh()) {
+            List<Attraction> result = withDistancesFrom(tile.attractions, lat, lon);
+            main.post(() -> cb.onResult(result));
+            return;
+        }
+
+        io.execute(() -> {
+            Tile fromDisk = readTile(key);
+            if (fromDisk != null && fromDisk.isFresh()) {
+                synchronized (memory) {
+                    memory.put(key, fromDisk);
+                }
+                List<Attraction> result = withDistancesFrom(fromDisk.attractions, lat, lon);
+                main.post(() -> cb.onResult(result));
+            } else {
+                if (fromDisk != null) fileFor(key).delete(); // expired
+                main.post(() -> cb.onResult(null));
+            }
+        });
+    }
+
+    // Stores a fresh Places response for the cell containing (lat, lon).
+    public void put(double lat, double lon, List<String> types, List<Attraction> attractions) {
+        String key = tileKey(lat, lon, types);
+        Tile tile = new Tile(System.currentTimeMillis(), new ArrayList<>(attractions));
+
+        synchronized (memory) {
+            memory.put(key, tile);
+        }
+        io.execute(() -> {
+            writeTile(key, tile);
+            trimDisk();
+        });
+    }
+
+    // Copies the cached attractions with distances measured from the new search centre.
+    private static List<Attraction> withDistancesFrom(List<Attraction> cached, double lat, double lon) {
+        List<Attraction> out = new ArrayList<>(cached.size());
+
+        for (Attraction a : cached) {
+            out.add(new Attraction(
+                    a.getName(),
+                    a.getLat(),
+                    a.getLng(),
+                    DistanceEngine.distanceMeters(lat, lon, a.getLat(), a.getLng()),
+                    a.getType(),
+                    a.getPrimaryTypeKey(),
+                    a.getRating(),
+                    a.getRatingCount(),
+                    a.getPhotoMetadata(),
+                    a.getPlaceId()
+            ));
+        }
+        return out;
+    }
+
+    private File fileFor(String key) {
+        // keys contain '|' and ',' which are fine on Android but we keep names simple
+        String name = key.replace('|', '_').replace(',', '+');
+        return new File(dir, name + ".json");
+    }
+
+    @Nullable
+    private Tile readTile(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) return null;
+
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                int n = in.read(bytes, read, bytes.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+
+            JSONObject root = new JSONObject(new String(bytes, 0, read, StandardCharsets.UTF_8));
+            JSONArray arr = root.getJSONArray("places");
+            List<Attraction> list = new ArrayList<>(arr.length());
+
+            for (int i = 0; i < arr.length(); i++) {
+                JSONObject o = arr.getJSONObject(i);
+                list.add(new Attraction(
+                        o.getString("name"),
+                        o.getDouble("lat"),
+                        o.getDouble("lng"),
+                        0,
+                        o.optString("typeLabel", null),
+                        o.optString("primaryTypeKey", null),
+                        o.has("rating") ? o.getDouble("rating") : null,
+                        o.has("ratingCount") ? o.getInt("ratingCount") : null,
+                        null, // photo metadata is not serializable; rows fall back to the photo cache
+                        o.getString("id")
+                ));
+            }
+            // lastModified doubles as "last used" for trimDisk()
+            file.setLastModified(System.currentTimeMillis());
+            return new Tile(root.getLong("savedAt"), list);
+
+        } catch (Exception e) {
+            Log.w(TAG, "Dropping unreadable tile " + key, e);
+            file.delete();
+            return null;
+        }
+    }
+
+    // Deletes expired tiles and the least recently used ones above MAX_DISK_TILES.
+    // A file untouched for longer than the TTL was saved even earlier, so it is expired.
+    private void trimDisk() {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+
+        long now = System.currentTimeMillis();
+        Arrays.sort(files, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+
+        for (int i = 0; i < files.length; i++) {
+            if (i >= MAX_DISK_TILES || now - files[i].lastModified() > TTL_MS) {
+                files[i].delete();
+            }
+        }
+    }
+
+    private void writeTile(String key, Tile tile) {
+        try {
+            if (!dir.exists()) dir.mkdirs();
+
+            JSONArray arr = new JSONArray();
+            for (Attraction a : tile.attractions) {
+                JSONObject o = new JSONObject();
+                o.put("id", a.getPlaceId());
+                o.put("name", a.getName());
+                o.put("lat", a.getLat());
+                o.put("lng", a.getLng());
+                o.put("typeLabel", a.getType());
+                o.put("primaryTypeKey", a.getPrimaryTypeKey());
+                if (a.getRating() != null) o.put("rating", a.getRating());
+                if (a.getRatingCount() != null) o.put("ratingCount", a.getRatingCount());
+                arr.put(o);
+            }
+
+            JSONObject root = new JSONObject();
+            root.put("savedAt", tile.savedAt);
+            root.put("places", arr);
+
+            try (FileOutputStream out = new FileOutputStream(fileFor(key))) {
+                out.write(root.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (Exception e) {
+            // ignore errors, it's just a cache
+            Log.w(TAG, "Failed to write tile " + key, e);
+        }
+    }
+}
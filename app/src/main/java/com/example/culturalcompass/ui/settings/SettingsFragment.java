@@ -15,6 +15,7 @@ import androidx.fragment.app.Fragment;
 import com.example.culturalcompass.MainActivity;
 import com.example.culturalcompass.R;
 import com.example.culturalcompass.ui.aboutus.AboutUsFragment;
+import com.example.culturalcompass.ui.favorites.FavoritesStore;
 import com.example.culturalcompass.ui.login.LoginFragment;
 import com.example.culturalcompass.ui.profile.UserViewInfoFragment;   // ⭐ ADDED
 import com.google.firebase.auth.FirebaseAuth;
@@ -92,6 +93,8 @@ public class SettingsFragment extends Fragment {
     }
 
     private void logout() {
+        // stop first: pending favorite writes are sent while still signed in
+        FavoritesStore.get().stop();
         FirebaseAuth.getInstance().signOut();
 
         Toast.makeText(requireContext(), "Logged out", Toast.LENGTH_SHORT).show();
@@ -0,0 +1,198 @@
+package com.example.culturalcompass.ui.assistant;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ChatContextTest {
+
+    private static final String SYSTEM = "You are a test.";
+
+    // Records summary requests; the test answers them when it wants.
+    private static class FakeSummarizer implements ChatContext.Summarizer {
+        final List<String> prompts = new ArrayList<>();
+        final List<ChatContext.SummaryCallback> pending = new ArrayList<>();
+
+        @Override
+        public void summarize(String prompt, ChatContext.SummaryCallback callback) {
+            prompts.add(prompt);
+            pending.add(callback);
+        }
+
+        void answer(String text) {
+            pending.remove(0).onSummary(text);
+        }
+    }
+
+    private final FakeSummarizer summarizer = new FakeSummarizer();
+    private final ChatContext chat = new ChatContext(summarizer, SYSTEM);
+
+    @Test
+    public void underBudget_everythingSentVerbatim() {
+        exchange("hi", "hello");
+        exchange("where is the museum?", "on the main square");
+
+        JSONArray contents = chat.contents();
+
+        assertEquals(5, contents.length());
+        assertEquals(SYSTEM, text(contents, 0));
+        assertEquals("hi", text(contents, 1));
+        assertEquals("on the main square", text(contents, 4));
+        assertTrue(summarizer.prompts.isEmpty());
+    }
+
+    @Test
+    public void aboveMaxTurns_foldsOldestExchange() {
+        for (int i = 1; i <= 5; i++) exchange("q" + i, "a" + i);
+
+        assertEquals(1, summarizer.prompts.size());
+        assertTrue(summarizer.prompts.get(0).contains("user: q1\nmodel: a1\n"));
+        assertFalse(summarizer.prompts.get(0).contains("q2"));
+
+        // folded turns are still sent until the summary arrives
+        JSONArray contents = chat.contents();
+        assertEquals(11, contents.length());
+        assertEquals("q1", text(contents, 1));
+
+        summarizer.answer("They talked about q1.");
+
+        contents = chat.contents();
+        assertEquals(1 + ChatContext.MAX_TURNS, contents.length());
+        assertEquals(SYSTEM + " Earlier in this conversation: They talked about q1.", text(contents, 0));
+        assertEquals("q2", text(contents, 1));
+        assertEquals("a5", text(contents, 8));
+    }
+
+    @Test
+    public void overTokenBudget_foldsEvenWithFewTurns() {
+        // 800 tokens each, so the second exchange puts the turns over the 1500 budget
+        String big = repeat('x', 800 * ChatContext.CHARS_PER_TOKEN);
+        exchange("first question", big);
+        assertTrue(summarizer.prompts.isEmpty());
+
+        exchange("second question", big);
+
+        assertEquals(1, summarizer.prompts.size());
+        assertTrue(summarizer.prompts.get(0).contains("user: first question"));
+
+        summarizer.answer("summary");
+        JSONArray contents = chat.contents();
+        assertEquals(3, contents.length());
+        assertEquals("second question", text(contents, 1));
+    }
+
+    @Test
+    public void overTokenBudget_lastExchangeIsAlwaysKept() {
+        String huge = repeat('y', 4 * ChatContext.TURN_TOKEN_BUDGET * ChatContext.CHARS_PER_TOKEN);
+        exchange("tell me everything", huge);
+
+        assertTrue(summarizer.prompts.isEmpty());
+        JSONArray contents = chat.contents();
+        assertEquals(3, contents.length());
+        assertEquals(huge, text(contents, 2));
+    }
+
+    @Test
+    public void failedSummary_fallsBackToFirstSentences() {
+        for (int i = 1; i <= 5; i++) {
+            exchange("Question " + i + ". More detail here.", "Answer " + i + ". And more.");
+        }
+
+        summarizer.answer(null);
+
+        String system = text(chat.contents(), 0);
+        assertEquals(SYSTEM + " Earlier in this conversation: User: Question 1. Assistant: Answer 1.", system);
+        assertEquals(1 + ChatContext.MAX_TURNS, chat.contents().length());
+    }
+
+    @Test
+    public void oneSummaryAtATime_nextIncludesPreviousSummary() {
+        for (int i = 1; i <= 6; i++) exchange("q" + i, "a" + i);
+
+        // q1 is being summarized, q2 waits for it
+        assertEquals(1, summarizer.prompts.size());
+        assertEquals(13, chat.contents().length());
+
+        summarizer.answer("S1");
+
+        assertEquals(2, summarizer.prompts.size());
+        String second = summarizer.prompts.get(1);
+        assertTrue(second.contains("Summary so far: S1"));
+        assertTrue(second.contains("user: q2\nmodel: a2\n"));
+
+        summarizer.answer("S2");
+        JSONArray contents = chat.contents();
+        assertEquals(1 + ChatContext.MAX_TURNS, contents.length());
+        assertTrue(text(contents, 0).endsWith("S2"));
+        assertEquals("q3", text(contents, 1));
+    }
+
+    @Test
+    public void clear_ignoresLateSummary() {
+        for (int i = 1; i <= 5; i++) exchange("q" + i, "a" + i);
+
+        chat.clear();
+        summarizer.answer("stale");
+
+        JSONArray contents = chat.contents();
+        assertEquals(1, contents.length());
+        assertEquals(SYSTEM, text(contents, 0));
+    }
+
+    @Test
+    public void longChat_requestSizeStaysFlat() {
+        for (int i = 0; i < 200; i++) {
+            exchange("question number " + i, "answer number " + i);
+            while (!summarizer.pending.isEmpty()) summarizer.answer("summary " + i);
+
+            assertTrue(chat.contents().length() <= 1 + ChatContext.MAX_TURNS);
+        }
+
+        JSONArray contents = chat.contents();
+        assertEquals("answer number 199", text(contents, contents.length() - 1));
+    }
+
+    @Test
+    public void longSummary_isCapped() {
+        for (int i = 1; i <= 5; i++) exchange("q" + i, "a" + i);
+
+        summarizer.answer(repeat('s', 5000));
+
+        String prefix = SYSTEM + " Earlier in this conversation: ";
+        assertEquals(prefix.length() + ChatContext.MAX_SUMMARY_CHARS, text(chat.contents(), 0).length());
+    }
+
+    @Test
+    public void dropLastUser_removesUnansweredQuestionOnly() {
+        exchange("hi", "hello");
+        chat.addUser("lost question");
+
+        chat.dropLastUser();
+        assertEquals(3, chat.contents().length());
+
+        // nothing to drop: the last turn is the model's
+        chat.dropLastUser();
+        assertEquals(3, chat.contents().length());
+    }
+
+    private void exchange(String user, String model) {
+        chat.addUser(user);
+        chat.addModel(model);
+    }
+
+    private static String text(JSONArray contents, int i) {
+        JSONObject turn = contents.optJSONObject(i);
+        return turn.optJSONArray("parts").optJSONObject(0).optString("text");
+    }
+
+    private static String repeat(char c, int n) {
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) sb.append(c);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.culturalcompass.ui.description;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class DescriptionCacheTest {
+
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final Locale defaultLocale = Locale.getDefault();
+    private File file;
+    private long now = 1_700_000_000_000L;
+
+    @Before
+    public void setUp() {
+        file = new File(tmp.getRoot(), "ai_descriptions.json");
+        Locale.setDefault(Locale.US);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void put_thenLookup() {
+        DescriptionCache cache = open();
+
+        cache.put("p1", "A museum.");
+
+        assertEquals("A museum.", cache.lookup("p1"));
+        assertNull(cache.lookup("p2"));
+        assertNull(cache.lookup(null));
+    }
+
+    @Test
+    public void put_ignoresMissingText() {
+        DescriptionCache cache = open();
+
+        cache.put("p1", null);
+        cache.put("p2", "");
+        cache.put(null, "text");
+
+        assertNull(cache.lookup("p1"));
+        assertNull(cache.lookup("p2"));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void lookup_expiresAfterThirtyDays() {
+        DescriptionCache cache = open();
+        cache.put("p1", "A museum.");
+
+        now += 30 * DAY_MS;
+        assertEquals("A museum.", cache.lookup("p1"));
+
+        now += 1;
+        assertNull(cache.lookup("p1"));
+    }
+
+    @Test
+    public void lookup_isKeyedByLocale() {
+        DescriptionCache cache = open();
+        cache.put("p1", "A museum.");
+
+        Locale.setDefault(Locale.FRANCE);
+        assertNull(cache.lookup("p1"));
+        cache.put("p1", "Un musée.");
+        assertEquals("Un musée.", cache.lookup("p1"));
+
+        Locale.setDefault(Locale.US);
+        assertEquals("A museum.", cache.lookup("p1"));
+    }
+
+    @Test
+    public void put_overTheBoundDropsLeastRecentlyUsed() {
+        DescriptionCache cache = open();
+        for (int i = 0; i < 300; i++) cache.put("p" + i, "text " + i);
+
+        assertNotNull(cache.lookup("p0")); // p1 is now the eldest
+        cache.put("p300", "text 300");
+
+        assertEquals("text 0", cache.lookup("p0"));
+        assertNull(cache.lookup("p1"));
+        assertEquals("text 300", cache.lookup("p300"));
+    }
+
+    @Test
+    public void reopen_restoresEntriesAndDropsExpiredOnes() {
+        DescriptionCache cache = open();
+        cache.put("old", "Old text.");
+        now += 20 * DAY_MS;
+        cache.put("new", "New text.");
+
+        now += 15 * DAY_MS;
+        DescriptionCache reopened = open();
+
+        assertNull(reopened.lookup("old"));
+        assertEquals("New text.", reopened.lookup("new"));
+    }
+
+    @Test
+    public void reopen_keepsKeysFromOtherLocales() {
+        open().put("p1", "A museum.");
+
+        Locale.setDefault(Locale.FRANCE);
+        DescriptionCache reopened = open();
+        assertNull(reopened.lookup("p1"));
+
+        Locale.setDefault(Locale.US);
+        assertEquals("A museum.", reopened.lookup("p1"));
+    }
+
+    @Test
+    public void reopen_dropsAnUnreadableFile() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("[{\"key\":".getBytes(StandardCharsets.UTF_8));
+        }
+
+        DescriptionCache cache = open();
+
+        assertFalse(file.exists());
+        assertNull(cache.lookup("p1"));
+    }
+
+    // Runs file work inline, so load and save are done when the call returns.
+    private DescriptionCache open() {
+        return new DescriptionCache(file, () -> now, Runnable::run);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.culturalcompass.ui.favorites;
+
+import com.example.culturalcompass.model.FirestoreAttraction;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class FavoritesWriteQueueTest {
+
+    private static final String EMAIL = "ana@example.com";
+
+    @Test
+    public void netWrites_unconfirmedServerWritesEverything() {
+        Map<String, FavoritesWriteQueue.Change> changes = new LinkedHashMap<>();
+        changes.put("b", change("b", true));
+        changes.put("a", change("a", false));
+
+        Map<String, FavoritesWriteQueue.Change> writes =
+                FavoritesWriteQueue.netWrites(changes, server(false, "b"));
+
+        // even "b", which looks like a no-op, because the cached state can't be trusted yet
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<>(writes.keySet()));
+    }
+
+    @Test
+    public void netWrites_confirmedServerSkipsNoOps() {
+        Map<String, FavoritesWriteQueue.Change> changes = new LinkedHashMap<>();
+        changes.put("fav", change("fav", true));         // already a favorite
+        changes.put("new", change("new", true));
+        changes.put("gone", change("gone", false));      // never was one
+        changes.put("removed", change("removed", false));
+
+        Map<String, FavoritesWriteQueue.Change> writes =
+                FavoritesWriteQueue.netWrites(changes, server(true, "fav", "removed"));
+
+        assertEquals(Arrays.asList("new", "removed"), new ArrayList<>(writes.keySet()));
+        assertTrue(writes.get("new").favorite);
+        assertFalse(writes.get("removed").favorite);
+    }
+
+    @Test
+    public void netWrites_tapsCollapseToTheLastState() {
+        // the queue keeps one Change per place, so fav, unfav, fav leaves only the last tap
+        Map<String, FavoritesWriteQueue.Change> changes = new LinkedHashMap<>();
+        changes.put("a", change("a", true));
+        changes.put("a", change("a", false));
+        changes.put("a", change("a", true));
+        changes.put("b", change("b", true));
+        changes.put("b", change("b", false));
+
+        // "a" ends where the server already is, "b" never left it
+        assertTrue(FavoritesWriteQueue.netWrites(changes, server(true, "a")).isEmpty());
+
+        Map<String, FavoritesWriteQueue.Change> writes =
+                FavoritesWriteQueue.netWrites(changes, server(true, "b"));
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(writes.keySet()));
+        assertTrue(writes.get("a").favorite);
+        assertFalse(writes.get("b").favorite);
+    }
+
+    @Test
+    public void journal_roundTripKeepsEveryField() throws JSONException {
+        FirestoreAttraction full = new FirestoreAttraction(
+                "p1", "Louvre", 48.8606, 2.3376, 120, "Museum", "museum", 4.7, 1000);
+        full.setPhotoRef("ref-1");
+        full.setPhotoWidth(4032);
+        full.setPhotoHeight(3024);
+        full.setPhotoAttributions("<a href=\"https://example.com\">Ana</a>");
+        FirestoreAttraction bare = new FirestoreAttraction(
+                "p2", "Park", 1, 2, 0, "Park", "park", null, null);
+
+        Map<String, FavoritesWriteQueue.Change> changes = new LinkedHashMap<>();
+        changes.put("p2", new FavoritesWriteQueue.Change(false, bare));
+        changes.put("p1", new FavoritesWriteQueue.Change(true, full));
+
+        String json = FavoritesWriteQueue.encodeJournal(EMAIL, new ArrayList<>(changes.entrySet()));
+        Map<String, FavoritesWriteQueue.Change> restored = FavoritesWriteQueue.decodeJournal(EMAIL, json);
+
+        assertEquals(Arrays.asList("p2", "p1"), new ArrayList<>(restored.keySet()));
+
+        FavoritesWriteQueue.Change c1 = restored.get("p1");
+        assertTrue(c1.favorite);
+        assertEquals("p1", c1.data.getId());
+        assertEquals("Louvre", c1.data.getName());
+        assertEquals(48.8606, c1.data.getLat(), 0);
+        assertEquals(2.3376, c1.data.getLng(), 0);
+        assertEquals(120, c1.data.getDistanceMeters(), 0);
+        assertEquals("Museum", c1.data.getTypeLabel());
+        assertEquals("museum", c1.data.getPrimaryTypeKey());
+        assertEquals(4.7, c1.data.getRating(), 0);
+        assertEquals(Integer.valueOf(1000), c1.data.getRatingCount());
+        assertEquals("ref-1", c1.data.getPhotoRef());
+        assertEquals(Integer.valueOf(4032), c1.data.getPhotoWidth());
+        assertEquals(Integer.valueOf(3024), c1.data.getPhotoHeight());
+        assertEquals(full.getPhotoAttributions(), c1.data.getPhotoAttributions());
+
+        FavoritesWriteQueue.Change c2 = restored.get("p2");
+        assertFalse(c2.favorite);
+        assertNull(c2.data.getRating());
+        assertNull(c2.data.getRatingCount());
+        assertNull(c2.data.getPhotoRef());
+        assertNull(c2.data.getPhotoWidth());
+        assertNull(c2.data.getPhotoHeight());
+        assertNull(c2.data.getPhotoAttributions());
+    }
+
+    @Test
+    public void journal_otherUsersChangesAreNotReplayed() throws JSONException {
+        List<Map.Entry<String, FavoritesWriteQueue.Change>> entries = new ArrayList<>();
+        entries.add(new AbstractMap.SimpleEntry<>("p1", change("p1", true)));
+
+        String json = FavoritesWriteQueue.encodeJournal(EMAIL, entries);
+
+        assertTrue(FavoritesWriteQueue.decodeJournal("bo@example.com", json).isEmpty());
+        assertEquals(1, FavoritesWriteQueue.decodeJournal(EMAIL, json).size());
+    }
+
+    @Test
+    public void journal_emptyListRoundTrips() throws JSONException {
+        String json = FavoritesWriteQueue.encodeJournal(EMAIL, Collections.emptyList());
+
+        assertTrue(FavoritesWriteQueue.decodeJournal(EMAIL, json).isEmpty());
+    }
+
+    @Test(expected = JSONException.class)
+    public void journal_garbageIsRejected() throws JSONException {
+        FavoritesWriteQueue.decodeJournal(EMAIL, "{\"email\":\"" + EMAIL + "\",\"changes\":[{");
+    }
+
+    private static FavoritesWriteQueue.Change change(String id, boolean favorite) {
+        return new FavoritesWriteQueue.Change(favorite,
+                new FirestoreAttraction(id, id, 0, 0, 0, "Museum", "museum", null, null));
+    }
+
+    private static FavoritesWriteQueue.ServerState server(boolean confirmed, String... favorites) {
+        Set<String> ids = new HashSet<>(Arrays.asList(favorites));
+        return new FavoritesWriteQueue.ServerState() {
+            @Override
+            public boolean isConfirmed() {
+                return confirmed;
+            }
+
+            @Override
+            public boolean isFavoriteOnServer(String placeId) {
+                return ids.contains(placeId);
+            }
+        };
+    }
+}
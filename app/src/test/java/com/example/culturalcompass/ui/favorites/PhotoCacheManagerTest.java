@@ -0,0 +1,58 @@
+package com.example.culturalcompass.ui.favorites;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PhotoCacheManagerTest {
+
+    @Test
+    public void sampleSize_unknownViewSizeDecodesFully() {
+        assertEquals(1, PhotoCacheManager.sampleSize(800, 600, 0, 0));
+        assertEquals(1, PhotoCacheManager.sampleSize(800, 600, -1, 200));
+    }
+
+    @Test
+    public void sampleSize_photoSmallerThanViewDecodesFully() {
+        assertEquals(1, PhotoCacheManager.sampleSize(400, 300, 600, 600));
+        assertEquals(1, PhotoCacheManager.sampleSize(400, 300, 300, 200));
+    }
+
+    @Test
+    public void sampleSize_largestPowerOfTwoThatStillCoversTheView() {
+        // 800 x 600 into 200 x 150: 4 gives exactly 200 x 150
+        assertEquals(4, PhotoCacheManager.sampleSize(800, 600, 200, 150));
+        // one pixel more on either side and 4 would leave the view uncovered
+        assertEquals(2, PhotoCacheManager.sampleSize(800, 600, 201, 150));
+        assertEquals(2, PhotoCacheManager.sampleSize(800, 600, 200, 151));
+    }
+
+    @Test
+    public void sampleSize_bothSidesMustCover() {
+        // a wide photo in a tall view (centerCrop): the height decides
+        assertEquals(1, PhotoCacheManager.sampleSize(1600, 400, 300, 300));
+        assertEquals(2, PhotoCacheManager.sampleSize(1600, 800, 100, 400));
+    }
+
+    @Test
+    public void sampleSize_resultAlwaysCoversTheView() {
+        int[] photos = {100, 333, 400, 799, 800, 1024, 1600, 4000};
+        int[] views = {1, 50, 120, 199, 200, 360, 800, 1080};
+
+        for (int w : photos) {
+            for (int h : photos) {
+                for (int rw : views) {
+                    for (int rh : views) {
+                        int sample = PhotoCacheManager.sampleSize(w, h, rw, rh);
+                        assertEquals(0, sample & (sample - 1)); // power of two
+                        if (sample > 1) {
+                            assertTrue(w / sample >= rw && h / sample >= rh);
+                            // and twice as much would be too far
+                            assertFalse(w / (sample * 2) >= rw && h / (sample * 2) >= rh);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
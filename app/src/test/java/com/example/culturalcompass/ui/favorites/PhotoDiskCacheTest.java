@@ -0,0 +1,153 @@
+package com.example.culturalcompass.ui.favorites;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class PhotoDiskCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void put_thenGet_returnsTheWrittenFile() throws IOException {
+        PhotoDiskCache cache = new PhotoDiskCache(tmp.getRoot(), 1000);
+
+        assertTrue(cache.put("a_400", out -> out.write(new byte[]{1, 2, 3})));
+
+        File file = cache.get("a_400");
+        assertNotNull(file);
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(file.toPath()));
+        assertEquals(3, cache.size());
+        assertNull(cache.get("b_400"));
+    }
+
+    @Test
+    public void put_sameKeyReplacesTheEntry() {
+        PhotoDiskCache cache = new PhotoDiskCache(tmp.getRoot(), 1000);
+
+        put(cache, "a_400", 100);
+        put(cache, "a_400", 30);
+
+        assertEquals(30, cache.size());
+        assertEquals(30, cache.get("a_400").length());
+    }
+
+    @Test
+    public void put_overBudgetEvictsLeastRecentlyUsed() {
+        PhotoDiskCache cache = new PhotoDiskCache(tmp.getRoot(), 250);
+
+        put(cache, "a_400", 100);
+        put(cache, "b_400", 100);
+        assertNotNull(cache.get("a_400")); // a is now more recent than b
+        put(cache, "c_400", 100);
+
+        assertNull(cache.get("b_400"));
+        assertFalse(new File(tmp.getRoot(), "b_400.jpg").exists());
+        assertNotNull(cache.get("a_400"));
+        assertNotNull(cache.get("c_400"));
+        assertEquals(200, cache.size());
+    }
+
+    @Test
+    public void reopen_replaysEntriesAndAccessOrder() {
+        PhotoDiskCache cache = new PhotoDiskCache(tmp.getRoot(), 250);
+        put(cache, "a_400", 100);
+        put(cache, "b_400", 100);
+        cache.get("a_400");
+        cache.remove("b_400");
+        put(cache, "c_400", 100);
+
+        PhotoDiskCache reopened = new PhotoDiskCache(tmp.getRoot(), 250);
+        assertEquals(200, reopened.size());
+        assertNull(reopened.get("b_400"));
+
+        // LRU order came back from the journal: a (older) goes before c
+        put(reopened, "d_400", 100);
+        assertNull(reopened.get("a_400"));
+        assertNotNull(reopened.get("c_400"));
+        assertNotNull(reopened.get("d_400"));
+    }
+
+    @Test
+    public void reopen_smallerBudgetTrims() {
+        PhotoDiskCache cache = new PhotoDiskCache(tmp.getRoot(), 1000);
+        put(cache, "a_400", 100);
+        put(cache, "b_400", 100);
+
+        PhotoDiskCache reopened = new PhotoDiskCache(tmp.getRoot(), 150);
+
+        assertEquals(100, reopened.size());
+        assertNull(reopened.get("a_400"));
+        assertNotNull(reopened.get("b_400"));
+    }
+
+    @Test
+    public void reopen_dropsEntriesWhoseFileIsGone() {
+        PhotoDiskCache cache = new PhotoDiskCache(tmp.getRoot(), 1000);
+        put(cache, "a_400", 100);
+        assertTrue(new File(tmp.getRoot(), "a_400.jpg").delete());
+
+        PhotoDiskCache reopened = new PhotoDiskCache(tmp.getRoot(), 1000);
+
+        assertEquals(0, reopened.size());
+        assertNull(reopened.get("a_400"));
+    }
+
+    @Test
+    public void firstOpen_deletesLegacyFilesAndTemps() throws IOException {
+        File legacy = write(new File(tmp.getRoot(), "ChIJlegacy.jpg"), 100);
+        File temp = write(new File(tmp.getRoot(), "a_400.123.tmp"), 10);
+
+        PhotoDiskCache cache = new PhotoDiskCache(tmp.getRoot(), 1000);
+
+        assertFalse(legacy.exists());
+        assertFalse(temp.exists());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void laterOpen_adoptsFilesMissingFromTheJournal() throws IOException {
+        PhotoDiskCache cache = new PhotoDiskCache(tmp.getRoot(), 1000);
+        put(cache, "a_400", 100);
+        // e.g. journal lines lost in a crash
+        write(new File(tmp.getRoot(), "b_800.jpg"), 50);
+
+        PhotoDiskCache reopened = new PhotoDiskCache(tmp.getRoot(), 1000);
+
+        assertEquals(150, reopened.size());
+        assertNotNull(reopened.get("b_800"));
+    }
+
+    @Test
+    public void failedWrite_leavesNoEntryAndNoTemp() {
+        PhotoDiskCache cache = new PhotoDiskCache(tmp.getRoot(), 1000);
+
+        assertFalse(cache.put("a_400", out -> {
+            out.write(1);
+            throw new IOException("compress failed");
+        }));
+
+        assertNull(cache.get("a_400"));
+        String[] names = tmp.getRoot().list();
+        for (String name : names) assertFalse(name, name.endsWith(".tmp"));
+    }
+
+    private static void put(PhotoDiskCache cache, String key, int size) {
+        assertTrue(cache.put(key, out -> out.write(new byte[size])));
+    }
+
+    private static File write(File file, int size) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[size]);
+        }
+        return file;
+    }
+}
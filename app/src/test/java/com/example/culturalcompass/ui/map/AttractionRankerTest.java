@@ -0,0 +1,115 @@
+package com.example.culturalcompass.ui.map;
+
+import com.example.culturalcompass.model.Attraction;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AttractionRankerTest {
+
+    @Test
+    public void sortIndices_emptyAndSingle() {
+        assertArrayEquals(new int[0], AttractionRanker.sortIndices(new double[0], false));
+        assertArrayEquals(new int[]{0}, AttractionRanker.sortIndices(new double[]{3}, true));
+    }
+
+    @Test
+    public void sortIndices_tiesKeepOriginalOrder() {
+        double[] keys = {2, 1, 2, 1, 2};
+
+        assertArrayEquals(new int[]{1, 3, 0, 2, 4}, AttractionRanker.sortIndices(keys, false));
+        assertArrayEquals(new int[]{0, 2, 4, 1, 3}, AttractionRanker.sortIndices(keys, true));
+    }
+
+    @Test
+    public void sortIndices_matchesCollectionsSort() {
+        Random random = new Random(7);
+
+        for (int n = 0; n < 200; n++) {
+            double[] keys = new double[n];
+            for (int i = 0; i < n; i++) {
+                // few distinct values, so most keys tie
+                keys[i] = random.nextInt(5) - 1.0;
+            }
+
+            assertArrayEquals(Arrays.toString(keys),
+                    collectionsOrder(keys, false), AttractionRanker.sortIndices(keys, false));
+            assertArrayEquals(Arrays.toString(keys),
+                    collectionsOrder(keys, true), AttractionRanker.sortIndices(keys, true));
+        }
+    }
+
+    @Test
+    public void rank_equalScoresKeepInputOrder() {
+        List<Attraction> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            // same rating for all, two distances
+            items.add(attraction("p" + i, i % 2 == 0 ? 500 : 100, 4.5, 200));
+        }
+
+        AttractionRanker.Ranking ranking = AttractionRanker.rank(items);
+
+        assertEquals(items, ranking.byRating());
+        assertEquals(Arrays.asList(
+                items.get(1), items.get(3), items.get(5), items.get(7), items.get(9),
+                items.get(0), items.get(2), items.get(4), items.get(6), items.get(8)),
+                ranking.byDistance());
+        assertEquals(ranking.byDistance(), ranking.byBest());
+        assertTrue(AttractionRanker.isStillOrdered(ranking));
+    }
+
+    @Test
+    public void isStillOrdered_detectsMovedDistance() {
+        List<Attraction> items = Arrays.asList(
+                attraction("a", 100, 4.0, 50),
+                attraction("b", 200, 4.0, 50),
+                attraction("c", 300, 4.0, 50));
+        AttractionRanker.Ranking ranking = AttractionRanker.rank(items);
+
+        items.get(0).setDistanceMeters(250);
+
+        assertFalse(AttractionRanker.isStillOrdered(ranking));
+    }
+
+    @Test
+    public void isStillOrdered_detectsBestOrderChange() {
+        Attraction good = attraction("good", 1000, 4.8, 500);
+        Attraction fair = attraction("fair", 900, 4.0, 500);
+        AttractionRanker.Ranking ranking = AttractionRanker.rank(Arrays.asList(good, fair));
+        assertEquals(Arrays.asList(good, fair), ranking.byBest());
+
+        // a small move keeps both orders
+        good.setDistanceMeters(1100);
+        assertTrue(AttractionRanker.isStillOrdered(ranking));
+
+        // 0.15 per km: 10 km further away costs 1.5 points, more than the rating gap;
+        // the distance order (fair, good) still holds, so only the best order can fail
+        good.setDistanceMeters(11000);
+        assertFalse(AttractionRanker.isStillOrdered(ranking));
+    }
+
+    // The order the old comparator-based code produced.
+    private static int[] collectionsOrder(double[] keys, boolean descending) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) order.add(i);
+
+        Collections.sort(order, (a, b) -> descending
+                ? Double.compare(keys[b], keys[a])
+                : Double.compare(keys[a], keys[b]));
+
+        int[] out = new int[order.size()];
+        for (int i = 0; i < out.length; i++) out[i] = order.get(i);
+        return out;
+    }
+
+    private static Attraction attraction(String id, double distance, Double rating, Integer count) {
+        return new Attraction(id, 0, 0, distance, "Museum", "museum", rating, count, null, id);
+    }
+}
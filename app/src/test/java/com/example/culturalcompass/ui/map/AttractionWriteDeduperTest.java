@@ -0,0 +1,60 @@
+package com.example.culturalcompass.ui.map;
+
+import com.example.culturalcompass.model.FirestoreAttraction;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AttractionWriteDeduperTest {
+
+    @Test
+    public void contentHash_sameContentSameHash() {
+        assertEquals(AttractionWriteDeduper.contentHash(place()),
+                AttractionWriteDeduper.contentHash(place()));
+    }
+
+    @Test
+    public void contentHash_ignoresDistance() {
+        FirestoreAttraction moved = place();
+        moved.setDistanceMeters(4321);
+
+        assertEquals(AttractionWriteDeduper.contentHash(place()),
+                AttractionWriteDeduper.contentHash(moved));
+    }
+
+    @Test
+    public void contentHash_changesWithEveryCachedField() {
+        long base = AttractionWriteDeduper.contentHash(place());
+
+        FirestoreAttraction[] changed = {
+                new FirestoreAttraction("p2", "Louvre", 48.8606, 2.3376, 10, "Museum", "museum", 4.7, 1000),
+                new FirestoreAttraction("p1", "Orsay", 48.8606, 2.3376, 10, "Museum", "museum", 4.7, 1000),
+                new FirestoreAttraction("p1", "Louvre", 48.8607, 2.3376, 10, "Museum", "museum", 4.7, 1000),
+                new FirestoreAttraction("p1", "Louvre", 48.8606, 2.3377, 10, "Museum", "museum", 4.7, 1000),
+                new FirestoreAttraction("p1", "Louvre", 48.8606, 2.3376, 10, "Gallery", "museum", 4.7, 1000),
+                new FirestoreAttraction("p1", "Louvre", 48.8606, 2.3376, 10, "Museum", "art_gallery", 4.7, 1000),
+                new FirestoreAttraction("p1", "Louvre", 48.8606, 2.3376, 10, "Museum", "museum", 4.6, 1000),
+                new FirestoreAttraction("p1", "Louvre", 48.8606, 2.3376, 10, "Museum", "museum", null, 1000),
+                new FirestoreAttraction("p1", "Louvre", 48.8606, 2.3376, 10, "Museum", "museum", 4.7, 1001),
+                new FirestoreAttraction("p1", "Louvre", 48.8606, 2.3376, 10, "Museum", "museum", 4.7, null),
+        };
+        for (FirestoreAttraction a : changed) {
+            assertNotEquals(a.getName() + " " + a.getRating() + " " + a.getRatingCount(),
+                    base, AttractionWriteDeduper.contentHash(a));
+        }
+    }
+
+    @Test
+    public void contentHash_fieldBoundariesMatter() {
+        // the same characters split differently between name and type label
+        FirestoreAttraction a = new FirestoreAttraction("p1", "ab", 0, 0, 0, "c", "museum", null, null);
+        FirestoreAttraction b = new FirestoreAttraction("p1", "a", 0, 0, 0, "bc", "museum", null, null);
+
+        assertNotEquals(AttractionWriteDeduper.contentHash(a), AttractionWriteDeduper.contentHash(b));
+    }
+
+    private static FirestoreAttraction place() {
+        return new FirestoreAttraction("p1", "Louvre", 48.8606, 2.3376, 10, "Museum", "museum", 4.7, 1000);
+    }
+}
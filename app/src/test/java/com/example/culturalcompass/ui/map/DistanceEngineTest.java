@@ -0,0 +1,108 @@
+package com.example.culturalcompass.ui.map;
+
+import com.example.culturalcompass.model.Attraction;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DistanceEngineTest {
+
+    private static final double R = 6371008.8;
+
+    @Test
+    public void distance_zeroForSamePoint() {
+        assertEquals(0, DistanceEngine.distanceMeters(41.9, 12.5, 41.9, 12.5), 0);
+    }
+
+    @Test
+    public void distance_oneDegreeOfLatitude() {
+        // 111.195 km on the mean sphere
+        assertEquals(111195, DistanceEngine.distanceMeters(45, 10, 46, 10), 1);
+    }
+
+    @Test
+    public void distance_longRangeUsesGreatCircle() {
+        // Paris - London
+        assertEquals(343500, DistanceEngine.distanceMeters(48.8566, 2.3522, 51.5074, -0.1278), 1000);
+        // Rome - New York
+        assertEquals(haversine(41.9028, 12.4964, 40.7128, -74.0060),
+                DistanceEngine.distanceMeters(41.9028, 12.4964, 40.7128, -74.0060), 1e-6);
+    }
+
+    @Test
+    public void distance_isSymmetric() {
+        double ab = DistanceEngine.distanceMeters(38.0, 23.7, 38.01, 23.72);
+        double ba = DistanceEngine.distanceMeters(38.01, 23.72, 38.0, 23.7);
+        assertEquals(ab, ba, 1e-9);
+    }
+
+    @Test
+    public void distance_approximationCloseToHaversineAtCityScale() {
+        Random random = new Random(3);
+
+        for (int i = 0; i < 2000; i++) {
+            double lat = -65 + random.nextDouble() * 130;
+            double lon = -179 + random.nextDouble() * 358;
+            // up to ~15 km away
+            double lat2 = lat + (random.nextDouble() - 0.5) * 0.25;
+            double lon2 = lon + (random.nextDouble() - 0.5) * 0.25;
+
+            double exact = haversine(lat, lon, lat2, lon2);
+            double d = DistanceEngine.distanceMeters(lat, lon, lat2, lon2);
+            assertEquals(exact, d, Math.max(0.01, exact * 0.001));
+        }
+    }
+
+    @Test
+    public void distance_highLatitudeStaysAccurate() {
+        double exact = haversine(78.22, 15.6, 78.25, 15.9);
+        assertEquals(exact, DistanceEngine.distanceMeters(78.22, 15.6, 78.25, 15.9), exact * 0.001);
+    }
+
+    @Test
+    public void updateDistances_onlyReportsVisibleChanges() {
+        Attraction a = attraction(45.0, 10.0);
+        List<Attraction> items = Collections.singletonList(a);
+
+        assertTrue(DistanceEngine.updateDistances(items, 45.001, 10.0));
+        double first = a.getDistanceMeters();
+        assertEquals(111.2, first, 0.1);
+
+        // ~0.1 m move: the shown value stays the same
+        assertFalse(DistanceEngine.updateDistances(items, 45.001 + 1e-6, 10.0));
+        assertEquals(first, a.getDistanceMeters(), 0);
+
+        // ~11 m move
+        assertTrue(DistanceEngine.updateDistances(items, 45.0011, 10.0));
+        assertEquals(122.3, a.getDistanceMeters(), 0.1);
+    }
+
+    @Test
+    public void updateDistances_updatesEveryItem() {
+        List<Attraction> items = Arrays.asList(attraction(45.0, 10.0), attraction(45.01, 10.0));
+
+        assertTrue(DistanceEngine.updateDistances(items, 45.0, 10.0));
+
+        assertEquals(0, items.get(0).getDistanceMeters(), 0);
+        assertEquals(1112, items.get(1).getDistanceMeters(), 1);
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * R * Math.asin(Math.sqrt(h));
+    }
+
+    private static Attraction attraction(double lat, double lng) {
+        return new Attraction("p", lat, lng, 0, "Museum", "museum", null, null, null, "p");
+    }
+}
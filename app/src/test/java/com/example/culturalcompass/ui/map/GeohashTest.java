@@ -0,0 +1,127 @@
+package com.example.culturalcompass.ui.map;
+
+import com.example.culturalcompass.model.FirestoreAttraction;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class GeohashTest {
+
+    @Test
+    public void encode_knownValue() {
+        assertEquals("ezs42", Geohash.encode(42.605, -5.603, 5));
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+    }
+
+    @Test
+    public void cellSize_followsBitSplit() {
+        // 25 bits: 13 longitude, 12 latitude
+        assertEquals(360.0 / (1 << 13), Geohash.cellWidth(5), 0);
+        assertEquals(180.0 / (1 << 12), Geohash.cellHeight(5), 0);
+        // 30 bits: 15 and 15
+        assertEquals(360.0 / (1 << 15), Geohash.cellWidth(6), 0);
+        assertEquals(180.0 / (1 << 15), Geohash.cellHeight(6), 0);
+    }
+
+    @Test
+    public void cellsCovering_boxInsideOneCell() {
+        double h = Geohash.cellHeight(5);
+        double w = Geohash.cellWidth(5);
+        // centre of some cell, box well inside it
+        double lat = -90 + (2000 + 0.5) * h;
+        double lon = -180 + (4000 + 0.5) * w;
+
+        List<String> cells = Geohash.cellsCovering(lat - h / 4, lon - w / 4, lat + h / 4, lon + w / 4, 5);
+
+        assertEquals(1, cells.size());
+        assertEquals(Geohash.encode(lat, lon, 5), cells.get(0));
+    }
+
+    @Test
+    public void cellsCovering_boxAcrossBordersReturnsBothSides() {
+        double h = Geohash.cellHeight(5);
+        double w = Geohash.cellWidth(5);
+        double borderLat = -90 + 2000 * h;
+        double borderLon = -180 + 4000 * w;
+        double e = 1e-7;
+
+        // straddles one latitude border and one longitude border: 2 x 2 cells
+        List<String> cells = Geohash.cellsCovering(
+                borderLat - e, borderLon - e, borderLat + e, borderLon + e, 5);
+
+        assertEquals(4, new HashSet<>(cells).size());
+        assertTrue(cells.contains(Geohash.encode(borderLat - e, borderLon - e, 5)));
+        assertTrue(cells.contains(Geohash.encode(borderLat - e, borderLon + e, 5)));
+        assertTrue(cells.contains(Geohash.encode(borderLat + e, borderLon - e, 5)));
+        assertTrue(cells.contains(Geohash.encode(borderLat + e, borderLon + e, 5)));
+    }
+
+    @Test
+    public void cellsCovering_pointOnBorderIsInTheCoveringCell() {
+        double h = Geohash.cellHeight(6);
+        double w = Geohash.cellWidth(6);
+        double lat = -90 + 12000 * h;
+        double lon = -180 + 20000 * w;
+
+        // a degenerate box exactly on the corner must still cover the point's own cell
+        List<String> cells = Geohash.cellsCovering(lat, lon, lat, lon, 6);
+
+        assertEquals(1, cells.size());
+        assertEquals(Geohash.encode(lat, lon, 6), cells.get(0));
+    }
+
+    @Test
+    public void cellsCovering_containsEveryPointOfTheBox() {
+        Random random = new Random(42);
+
+        for (int precision = 4; precision <= 7; precision++) {
+            for (int round = 0; round < 50; round++) {
+                double minLat = -80 + random.nextDouble() * 160;
+                double minLon = -170 + random.nextDouble() * 340;
+                double maxLat = minLat + random.nextDouble() * Geohash.cellHeight(precision) * 3;
+                double maxLon = minLon + random.nextDouble() * Geohash.cellWidth(precision) * 3;
+
+                Set<String> cells = new HashSet<>(
+                        Geohash.cellsCovering(minLat, minLon, maxLat, maxLon, precision));
+
+                for (int i = 0; i < 50; i++) {
+                    double lat = minLat + random.nextDouble() * (maxLat - minLat);
+                    double lon = minLon + random.nextDouble() * (maxLon - minLon);
+                    assertTrue(cells.contains(Geohash.encode(lat, lon, precision)));
+                }
+                // corners too
+                assertTrue(cells.contains(Geohash.encode(minLat, minLon, precision)));
+                assertTrue(cells.contains(Geohash.encode(maxLat, maxLon, precision)));
+            }
+        }
+    }
+
+    @Test
+    public void spatialIndex_findsPlaceJustAcrossACellBorder() {
+        double borderLat = -90 + 3000 * Geohash.cellHeight(5);
+        double lon = 10.0;
+
+        AttractionSpatialIndex index = new AttractionSpatialIndex();
+        FirestoreAttraction across = place("across", borderLat + 0.0005, lon);
+        FirestoreAttraction far = place("far", borderLat + 0.5, lon);
+        index.add(across);
+        index.add(far);
+
+        // query centre on the other side of the border, ~110 m away
+        List<AttractionSpatialIndex.Hit> hits = index.withinRadius(borderLat - 0.0005, lon, 500);
+
+        assertEquals(1, hits.size());
+        assertSame(across, hits.get(0).attraction);
+        assertEquals(111, hits.get(0).distanceMeters, 2);
+    }
+
+    private static FirestoreAttraction place(String id, double lat, double lng) {
+        return new FirestoreAttraction(id, id, lat, lng, 0, null, null, null, null);
+    }
+}
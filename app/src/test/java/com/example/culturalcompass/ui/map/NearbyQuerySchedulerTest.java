@@ -0,0 +1,194 @@
+package com.example.culturalcompass.ui.map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NearbyQuerySchedulerTest {
+
+    private static final List<String> MUSEUMS = Collections.singletonList("museum");
+    private static final List<String> PARKS = Collections.singletonList("park");
+
+    // two points in the same precision-6 cell, and one far away
+    private static final double LAT = 48.8606, LON = 2.3376;
+    private static final double NEAR_LAT = 48.8607, NEAR_LON = 2.3377;
+    private static final double FAR_LAT = 48.8738, FAR_LON = 2.2950;
+
+    private final ManualTimer timer = new ManualTimer();
+    private final List<NearbyQueryScheduler.Query> started = new ArrayList<>();
+    private NearbyQueryScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new NearbyQueryScheduler(started::add, timer);
+    }
+
+    @Test
+    public void submit_runsOnlyAfterTheDebounce() {
+        scheduler.submit(LAT, LON, MUSEUMS);
+
+        timer.advance(299);
+        assertTrue(started.isEmpty());
+
+        timer.advance(1);
+        assertEquals(1, started.size());
+        assertSame(started.get(0), scheduler.current());
+        assertEquals(LAT, started.get(0).lat, 0);
+    }
+
+    @Test
+    public void submit_burstRunsOnlyTheLastQuery() {
+        scheduler.submit(LAT, LON, MUSEUMS);
+        timer.advance(100);
+        scheduler.submit(FAR_LAT, FAR_LON, MUSEUMS);
+        timer.advance(100);
+        scheduler.submit(LAT, LON, PARKS);
+        timer.advance(1000);
+
+        assertEquals(1, started.size());
+        assertEquals(PARKS, started.get(0).types);
+    }
+
+    @Test
+    public void submit_sameTileAsPendingKeepsTheFirstDeadline() {
+        scheduler.submit(LAT, LON, MUSEUMS);
+        timer.advance(200);
+        // same cell and types: not a new query, so the debounce is not restarted
+        scheduler.submit(NEAR_LAT, NEAR_LON, MUSEUMS);
+        timer.advance(100);
+
+        assertEquals(1, started.size());
+        assertEquals(LAT, started.get(0).lat, 0);
+    }
+
+    @Test
+    public void submit_typeOrderDoesNotMakeANewQuery() {
+        scheduler.submit(LAT, LON, Arrays.asList("museum", "park"));
+        timer.advance(300);
+        scheduler.submit(LAT, LON, Arrays.asList("park", "museum"));
+        timer.advance(300);
+
+        assertEquals(1, started.size());
+    }
+
+    @Test
+    public void submit_sameTileAsInFlightIsDropped() {
+        scheduler.submit(LAT, LON, MUSEUMS);
+        timer.advance(300);
+
+        scheduler.submit(NEAR_LAT, NEAR_LON, MUSEUMS);
+        timer.advance(1000);
+
+        assertEquals(1, started.size());
+        assertTrue(scheduler.isCurrent(started.get(0)));
+        assertFalse(started.get(0).token().isCancellationRequested());
+    }
+
+    @Test
+    public void submit_sameTileAsInFlightDropsAnOlderPendingQuery() {
+        scheduler.submit(LAT, LON, MUSEUMS);
+        timer.advance(300);
+        scheduler.submit(FAR_LAT, FAR_LON, MUSEUMS);
+        timer.advance(100);
+        // back to the tile already being fetched: the far query is no longer wanted
+        scheduler.submit(LAT, LON, MUSEUMS);
+        timer.advance(1000);
+
+        assertEquals(1, started.size());
+        assertTrue(scheduler.isCurrent(started.get(0)));
+    }
+
+    @Test
+    public void submit_sameTileRunsAgainOnceFinished() {
+        scheduler.submit(LAT, LON, MUSEUMS);
+        timer.advance(300);
+        scheduler.finish(started.get(0));
+
+        scheduler.submit(LAT, LON, MUSEUMS);
+        timer.advance(300);
+
+        assertEquals(2, started.size());
+    }
+
+    @Test
+    public void newQuery_supersedesTheInFlightOne() {
+        scheduler.submit(LAT, LON, MUSEUMS);
+        timer.advance(300);
+        NearbyQueryScheduler.Query first = started.get(0);
+
+        scheduler.submit(FAR_LAT, FAR_LON, MUSEUMS);
+        timer.advance(300);
+        NearbyQueryScheduler.Query second = started.get(1);
+
+        assertTrue(first.token().isCancellationRequested());
+        assertFalse(scheduler.isCurrent(first));
+        assertTrue(scheduler.isCurrent(second));
+        assertFalse(second.token().isCancellationRequested());
+    }
+
+    @Test
+    public void cancelAll_dropsPendingAndCancelsInFlight() {
+        scheduler.submit(LAT, LON, MUSEUMS);
+        timer.advance(300);
+        NearbyQueryScheduler.Query first = started.get(0);
+        scheduler.submit(FAR_LAT, FAR_LON, MUSEUMS);
+
+        scheduler.cancelAll();
+        timer.advance(1000);
+
+        assertEquals(1, started.size());
+        assertNull(scheduler.current());
+        assertFalse(scheduler.isCurrent(first));
+        assertTrue(first.token().isCancellationRequested());
+
+        // and the same tile can be asked for again afterwards
+        scheduler.submit(LAT, LON, MUSEUMS);
+        timer.advance(300);
+        assertEquals(2, started.size());
+    }
+
+    // Runs posted callbacks when the test moves the clock forward.
+    private static class ManualTimer implements NearbyQueryScheduler.Timer {
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final List<Long> deadlines = new ArrayList<>();
+        private long now = 0;
+
+        @Override
+        public void postDelayed(Runnable r, long delayMs) {
+            tasks.add(r);
+            deadlines.add(now + delayMs);
+        }
+
+        @Override
+        public void cancel(Runnable r) {
+            for (int i = tasks.size() - 1; i >= 0; i--) {
+                if (tasks.get(i) == r) {
+                    tasks.remove(i);
+                    deadlines.remove(i);
+                }
+            }
+        }
+
+        void advance(long ms) {
+            now += ms;
+            List<Runnable> due = new ArrayList<>();
+            Iterator<Long> it = deadlines.iterator();
+            for (Iterator<Runnable> t = tasks.iterator(); t.hasNext(); ) {
+                Runnable r = t.next();
+                if (it.next() <= now) {
+                    due.add(r);
+                    t.remove();
+                    it.remove();
+                }
+            }
+            for (Runnable r : due) r.run();
+        }
+    }
+}